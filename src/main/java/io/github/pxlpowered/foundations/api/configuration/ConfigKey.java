@@ -0,0 +1,156 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.api.configuration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.TypeToken;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
+import ninja.leaping.configurate.objectmapping.serialize.TypeSerializer;
+import ninja.leaping.configurate.objectmapping.serialize.TypeSerializers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A typed key for a value in a {@link Configuration}.
+ *
+ * <p>The path and {@link TypeSerializer} of the key are resolved once when the
+ *     key is created, so keys are best kept in a constant. Keys with the same
+ *     type and path are equal and share their cached values.
+ *
+ * @param <T> The type of the value.
+ */
+public final class ConfigKey<T> {
+
+    private final TypeToken<T> type;
+    private final Object[] path;
+    private final TypeSerializer<T> serializer;
+
+    private ConfigKey(TypeToken<T> type, Object[] path, TypeSerializer<T> serializer) {
+        this.type = type;
+        this.path = path;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Creates a new key.
+     *
+     * @param type The type of the value.
+     * @param path The path of the value.
+     * @param <T> The type of the value.
+     * @return The key.
+     * @throws IllegalArgumentException Thrown if there is no serializer for
+     *     the type.
+     */
+    public static <T> ConfigKey<T> of(Class<T> type, Object... path) {
+        checkNotNull(type, "type");
+
+        return of(TypeToken.of(type), path);
+    }
+
+    /**
+     * Creates a new key.
+     *
+     * @param type The type of the value.
+     * @param path The path of the value.
+     * @param <T> The type of the value.
+     * @return The key.
+     * @throws IllegalArgumentException Thrown if there is no serializer for
+     *     the type.
+     */
+    public static <T> ConfigKey<T> of(TypeToken<T> type, Object... path) {
+        checkNotNull(type, "type");
+        checkNotNull(path, "path");
+
+        TypeSerializer<T> serializer = TypeSerializers.getDefaultSerializers().get(type);
+        checkArgument(serializer != null, "No serializer for type %s", type);
+
+        return new ConfigKey<>(type, path.clone(), serializer);
+    }
+
+    /**
+     * Gets the type of the value.
+     *
+     * @return The type.
+     */
+    public TypeToken<T> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the path of the value.
+     *
+     * @return The path.
+     */
+    public List<Object> getPath() {
+        return ImmutableList.copyOf(path);
+    }
+
+    /**
+     * Reads the value of the key from a root node.
+     *
+     * @param root The root node.
+     * @return The value, {@link Optional#empty()} otherwise.
+     * @throws ObjectMappingException Thrown if the value could not be
+     *     deserialized.
+     */
+    public Optional<T> getValue(ConfigurationNode root) throws ObjectMappingException {
+        checkNotNull(root, "root");
+
+        ConfigurationNode node = root.getNode(path);
+        return node.isVirtual() ? Optional.empty() : Optional.ofNullable(serializer.deserialize(type, node));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof ConfigKey)) {
+            return false;
+        }
+
+        ConfigKey<?> that = (ConfigKey<?>) o;
+        return type.equals(that.type) && Arrays.equals(path, that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + Arrays.hashCode(path);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigKey{type=" + type + ", path=" + Arrays.toString(path) + "}";
+    }
+
+}
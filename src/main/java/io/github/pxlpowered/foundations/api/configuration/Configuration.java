@@ -33,6 +33,8 @@
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Marks a configuration class.
@@ -47,13 +49,76 @@ public interface Configuration {
      */
     void load();
 
+    /**
+     * Loads the configuration into memory off the server thread.
+     *
+     * <p>The returned future completes on the server thread, so it must not
+     *     be waited on from the server thread.
+     *
+     * @return A future completed once the configuration is loaded.
+     */
+    CompletableFuture<Void> loadAsync();
+
+    /**
+     * Gets the unique id of the configuration.
+     *
+     * @return The unique id.
+     */
+    UUID getUniqueId();
+
     /**
      * Gets the {@link CommentedConfigurationNode} for the configuration.
      *
+     * <p>The node is only safe to use from the server thread. Changes made to
+     *     it show in {@link #getSnapshot()} once the configuration is saved.
+     *     Configurations which are never saved should be changed through
+     *     {@link #commit(MutableConfigurationSnapshot)} instead.
+     *
      * @return The configuration node, {@link Optional#empty()} otherwise.
      */
     Optional<CommentedConfigurationNode> get();
 
+    /**
+     * Gets the latest snapshot of the configuration.
+     *
+     * <p>A new snapshot is published every time the configuration is loaded,
+     *     saved or a snapshot is committed. Reading a snapshot is safe from any
+     *     thread and never sees a partially loaded configuration.
+     *
+     * @return The snapshot.
+     */
+    ImmutableConfigurationSnapshot getSnapshot();
+
+    /**
+     * Gets the value of a key from the latest snapshot.
+     *
+     * <p>Immutable values, and lists, sets and maps of them, are deserialized
+     *     once per snapshot and cached, so repeated reads are cheap until the
+     *     configuration is loaded, saved or committed to again. Cached
+     *     collections are unmodifiable. Other values are deserialized on
+     *     every read, so callers never share a mutable value. Values that
+     *     could not be deserialized are logged once and read as
+     *     {@link Optional#empty()}.
+     *
+     * @param key The key.
+     * @param <T> The type of the value.
+     * @return The value, {@link Optional#empty()} otherwise.
+     */
+    <T> Optional<T> getValue(ConfigKey<T> key);
+
+    /**
+     * Commits a modified snapshot as the new state of the configuration.
+     *
+     * <p>The commit only succeeds if the configuration was not loaded, saved
+     *     or committed to since the snapshot was copied from
+     *     {@link #getSnapshot()}. Otherwise take a new snapshot and try again.
+     *
+     * @param snapshot The modified snapshot.
+     * @return {@code true} if the snapshot was committed, {@code false}
+     *     otherwise.
+     */
+    boolean commit(MutableConfigurationSnapshot snapshot);
+
     /**
      * The builder for {@link Configuration}.
      *
@@ -80,6 +145,8 @@ public interface Configuration {
         /**
          * The asset to merge configuration nodes from.
          *
+         * <p>Defaults are merged in the order they were added.
+         *
          * @param asset The asset.
          * @return The builder.
          */
@@ -101,6 +168,32 @@ public interface Configuration {
          */
         Builder<T> defaults(Collection<Asset> assets);
 
+        /**
+         * Sets whether the default assets are parsed in parallel.
+         *
+         * <p>The parsed defaults are still merged in the order they were
+         *     added, so the result is the same either way.
+         *
+         * @param parallel {@code true} to parse in parallel, {@code false}
+         *     otherwise.
+         * @return The builder.
+         */
+        Builder<T> parallelDefaults(boolean parallel);
+
+        /**
+         * Sets whether the configuration is reloaded by bulk reloads, like
+         *     the one Foundations runs when the game reloads.
+         *
+         * <p>This is off by default, so a reload never throws away changes
+         *     which were not saved yet. Only enable it if the configuration is
+         *     not reloaded by its owner already.
+         *
+         * @param bulkReload {@code true} to take part in bulk reloads,
+         *     {@code false} otherwise.
+         * @return The builder.
+         */
+        Builder<T> bulkReload(boolean bulkReload);
+
     }
 
 }
@@ -0,0 +1,65 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.api.configuration;
+
+import com.google.common.reflect.TypeToken;
+import io.github.pxlpowered.foundations.api.util.manipulation.Immutable;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
+
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of the state of a {@link Configuration}.
+ *
+ * <p>Snapshots never change once created, so they can be read from any
+ *     thread without locking. To change the configuration, modify a
+ *     {@link #asMutable()} copy and {@link Configuration#commit commit} it.
+ */
+public interface ImmutableConfigurationSnapshot extends Immutable<MutableConfigurationSnapshot> {
+
+    /**
+     * Gets the value at the path.
+     *
+     * <p>Map and list values are returned as detached copies.
+     *
+     * @param path The path of the value.
+     * @return The value, {@link Optional#empty()} otherwise.
+     */
+    Optional<Object> getValue(Object... path);
+
+    /**
+     * Gets the value at the path, deserialized to the type.
+     *
+     * @param type The type of the value.
+     * @param path The path of the value.
+     * @param <T> The type of the value.
+     * @return The value, {@link Optional#empty()} otherwise.
+     * @throws ObjectMappingException Thrown if the value could not be
+     *     deserialized.
+     */
+    <T> Optional<T> getValue(TypeToken<T> type, Object... path) throws ObjectMappingException;
+
+}
@@ -25,7 +25,12 @@
 
 package io.github.pxlpowered.foundations.api.configuration;
 
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+
 import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A persistent variant of {@link Configuration}.
@@ -36,9 +41,52 @@ public interface PersistentConfiguration extends Configuration {
 
     /**
      * Saves the configuration to disk.
+     *
+     * <p>Nothing is written if the configuration is not
+     *     {@link #isDirty() dirty}.
      */
     void save();
 
+    /**
+     * Saves the configuration to disk off the server thread.
+     *
+     * <p>The configuration is copied when this is called, so changes made
+     *     afterwards are not part of this save. Only the writing happens off
+     *     the server thread. If the configuration writes behind, the write
+     *     waits for the window like any other save.
+     *
+     * <p>The returned future completes on the server thread, so it must not
+     *     be waited on from the server thread.
+     *
+     * @return A future completed once the configuration is written, or
+     *     completed exceptionally if it could not be written.
+     */
+    CompletableFuture<Void> saveAsync();
+
+    /**
+     * Gets whether the configuration was modified since it was last loaded
+     *     or saved.
+     *
+     * <p>A configuration is also dirty right after loading if its defaults
+     *     added values which are not in the file yet.
+     *
+     * @return {@code true} if the configuration was modified, {@code false}
+     *     otherwise.
+     */
+    boolean isDirty();
+
+    /**
+     * Gets a top level section of the configuration.
+     *
+     * <p>If the configuration loads sections lazily, only this section is
+     *     parsed on first access. Otherwise this is the same as getting the
+     *     node for the key from {@link #get()}.
+     *
+     * @param key The key of the section.
+     * @return The section node, {@link Optional#empty()} otherwise.
+     */
+    Optional<CommentedConfigurationNode> getSection(String key);
+
     /**
      * The builder for {@link PersistentConfiguration}.
      */
@@ -53,6 +101,68 @@ public interface PersistentConfiguration extends Configuration {
          */
         Builder file(Path path);
 
+        /**
+         * Enables write-behind saving for the configuration.
+         *
+         * <p>When enabled, {@link PersistentConfiguration#save()} returns
+         *     immediately and the file is written off the calling thread. Saves
+         *     requested within the window are merged into a single write.
+         *
+         * @param window The time to wait for further saves before writing,
+         *     must be positive.
+         * @param unit The unit of the window.
+         * @return The builder.
+         * @throws IllegalArgumentException Thrown if the window is not
+         *     positive.
+         */
+        Builder<P> writeBehind(long window, TimeUnit unit);
+
+        /**
+         * Enables hot reloading for the configuration.
+         *
+         * <p>When enabled, the file is watched for changes once the
+         *     configuration is loaded. Changes are debounced and the
+         *     configuration is only reloaded if the content of the file
+         *     actually changed.
+         *
+         * @param debounce The time the file must be left alone before it is
+         *     checked for changes, must be positive.
+         * @param unit The unit of the debounce time.
+         * @return The builder.
+         * @throws IllegalArgumentException Thrown if the debounce time is not
+         *     positive.
+         */
+        Builder<P> hotReload(long debounce, TimeUnit unit);
+
+        /**
+         * Enables a binary cache of the loaded configuration.
+         *
+         * <p>After a successful load, the fully merged configuration is
+         *     written to the cache file. Later loads read the cache instead of
+         *     parsing the configuration, as long as the file and the default
+         *     assets did not change since the cache was written.
+         *
+         * @param cache The path of the cache file.
+         * @return The builder.
+         */
+        Builder<P> binaryCache(Path cache);
+
+        /**
+         * Sets whether top level sections are parsed on demand.
+         *
+         * <p>When enabled, loading only memory maps the file and indexes its
+         *     top level sections. A section is parsed the first time it is
+         *     requested through {@link PersistentConfiguration#getSection}.
+         *     Getting the whole node or a snapshot, or saving, parses all
+         *     remaining sections. Files using includes or substitutions are
+         *     always parsed completely.
+         *
+         * @param lazy {@code true} to parse sections on demand, {@code false}
+         *     otherwise.
+         * @return The builder.
+         */
+        Builder<P> lazySections(boolean lazy);
+
     }
 
 }
@@ -0,0 +1,259 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.concurrent;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.api.Sponge;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs blocking I/O off the server thread.
+ *
+ * <p>Tasks run on virtual threads when the JVM supports them, and on a small
+ *     bounded pool of daemon threads otherwise. Once the plugin is set, the
+ *     returned futures complete on the server thread through the Sponge
+ *     scheduler, so callbacks attached to them may use the game freely.
+ *
+ * <p><b>NOTE: </b>Never block the server thread on a returned future, since
+ *     it can only complete once the server thread is free.
+ */
+public final class IoExecutor {
+
+    private static final int THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService EXECUTOR;
+    private static final boolean VIRTUAL;
+
+    private static volatile Executor mainThread = Runnable::run;
+
+    static {
+        ExecutorService virtual = null;
+
+        try {
+            virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // Virtual threads are not supported by this JVM
+        }
+
+        VIRTUAL = virtual != null;
+        EXECUTOR = VIRTUAL ? virtual : createPool();
+    }
+
+    // Do not instantiate
+    private IoExecutor() {
+    }
+
+    /**
+     * Sets the plugin whose Sponge scheduler delivers completions to the
+     *     server thread.
+     *
+     * <p>Until the plugin is set, futures complete on the thread that ran
+     *     the task.
+     *
+     * @param plugin The plugin.
+     */
+    public static void setPlugin(Object plugin) {
+        checkNotNull(plugin, "plugin");
+
+        mainThread = Sponge.getScheduler().createSyncExecutor(plugin);
+    }
+
+    /**
+     * Gets whether tasks run on virtual threads.
+     *
+     * @return {@code true} if tasks run on virtual threads, {@code false} if
+     *     they run on the bounded pool.
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    /**
+     * Gets the executor that runs the I/O tasks.
+     *
+     * @return The executor.
+     */
+    public static Executor getExecutor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Runs a task off the server thread.
+     *
+     * @param task The task.
+     * @return A future completed on the server thread once the task finished.
+     */
+    public static CompletableFuture<Void> run(Task task) {
+        checkNotNull(task, "task");
+
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Computes a value off the server thread.
+     *
+     * @param task The task computing the value.
+     * @param <T> The type of the value.
+     * @return A future completed on the server thread with the value.
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> task) {
+        checkNotNull(task, "task");
+
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+
+        return onMainThread(future);
+    }
+
+    /**
+     * Starts a task off the server thread for a caller that waits for it.
+     *
+     * <p>Unlike {@link #supply(Callable)}, the returned future completes on
+     *     the thread that ran the task, so it may be waited on from any
+     *     thread.
+     *
+     * @param task The task.
+     * @param <T> The type of the value.
+     * @return A future completed with the value once the task finished.
+     */
+    public static <T> Future<T> fork(Callable<T> task) {
+        checkNotNull(task, "task");
+
+        FutureTask<T> future = new FutureTask<>(task);
+        EXECUTOR.execute(future);
+        return future;
+    }
+
+    /**
+     * Waits for a forked task, running it on the calling thread if no thread
+     *     started it yet.
+     *
+     * <p>Tasks which fork and join tasks of their own can so never take every
+     *     thread of the bounded pool while the tasks they wait for are
+     *     queued.
+     *
+     * @param future The future returned by {@link #fork(Callable)}.
+     * @param <T> The type of the value.
+     * @return The value.
+     * @throws InterruptedException Thrown if the calling thread was
+     *     interrupted while waiting.
+     * @throws ExecutionException Thrown if the task failed.
+     */
+    public static <T> T join(Future<T> future) throws InterruptedException, ExecutionException {
+        checkNotNull(future, "future");
+
+        if (future instanceof RunnableFuture) {
+            // Does nothing if the task was started already
+            ((RunnableFuture<T>) future).run();
+        }
+
+        return future.get();
+    }
+
+    /**
+     * Completes a future on the server thread once another one completed.
+     *
+     * @param future The future completed off the server thread.
+     * @param <T> The type of the value.
+     * @return A future completed on the server thread with the same value or
+     *     exception.
+     */
+    public static <T> CompletableFuture<T> onMainThread(CompletableFuture<T> future) {
+        checkNotNull(future, "future");
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        future.whenComplete((value, e) -> {
+            Runnable complete = () -> {
+                if (e == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(e);
+                }
+            };
+
+            try {
+                mainThread.execute(complete);
+            } catch (RejectedExecutionException ignored) {
+                // The scheduler is shut down with the server, complete here so no future hangs
+                complete.run();
+            }
+        });
+
+        return result;
+    }
+
+    private static ExecutorService createPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "foundations-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * A blocking I/O task.
+     */
+    @FunctionalInterface
+    public interface Task {
+
+        /**
+         * Runs the task.
+         *
+         * @throws Exception If the task failed.
+         */
+        void run() throws Exception;
+
+    }
+
+}
@@ -27,20 +27,38 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import io.github.pxlpowered.foundations.api.configuration.ConfigKey;
 import io.github.pxlpowered.foundations.api.configuration.Configuration;
+import io.github.pxlpowered.foundations.api.configuration.ImmutableConfigurationSnapshot;
+import io.github.pxlpowered.foundations.api.configuration.MutableConfigurationSnapshot;
+import io.github.pxlpowered.foundations.core.concurrent.IoExecutor;
+import io.github.pxlpowered.foundations.core.message.internal.InternalLogger;
 import io.github.pxlpowered.foundations.core.message.internal.InternalMessages;
+import io.github.pxlpowered.foundations.core.message.internal.MessageKeys;
+import io.github.pxlpowered.foundations.core.metrics.Counter;
+import io.github.pxlpowered.foundations.core.metrics.Histogram;
+import io.github.pxlpowered.foundations.core.metrics.MetricsRegistry;
+import ninja.leaping.configurate.ConfigurationNode;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
 import org.slf4j.Logger;
 import org.spongepowered.api.asset.Asset;
 import org.spongepowered.api.plugin.PluginContainer;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -51,31 +69,245 @@
  */
 public abstract class AbstractConfiguration implements Configuration {
 
-    final InternalMessages internalMessages;
-    final Set<URL> urls = new HashSet<>();
-    final Logger logger;
+    static final Histogram LOADS = MetricsRegistry.histogram("configuration.load");
+    static final Histogram SAVES = MetricsRegistry.histogram("configuration.save");
+    static final Histogram MERGES = MetricsRegistry.histogram("configuration.merge");
+    static final Counter LOAD_ERRORS = MetricsRegistry.counter("configuration.load.errors");
+    static final Counter SAVE_ERRORS = MetricsRegistry.counter("configuration.save.errors");
+    static final Counter SAVES_SKIPPED = MetricsRegistry.counter("configuration.save.skipped");
+    static final Counter ASSET_ERRORS = MetricsRegistry.counter("configuration.asset.errors");
+
+    final InternalLogger log;
+    final Set<URL> urls = new LinkedHashSet<>();
+    final boolean parallelDefaults;
+    final boolean bulkReload;
     final UUID uuid;
 
-    @Nullable CommentedConfigurationNode node;
+    private final Object publishLock = new Object();
+    private volatile ImmutableConfigurationSnapshotImpl snapshot =
+            new ImmutableConfigurationSnapshotImpl(SimpleCommentedConfigurationNode.root());
+    private volatile boolean published = false;
+
+    // The node handed out by get(), copied from the snapshot on first access
+    @Nullable private volatile CommentedConfigurationNode node;
 
     /**
      * Constructs a new instance of a {@link AbstractConfiguration}.
      *
      * @param internalMessages The internal messages instance.
-     * @param urls The asset urls.
+     * @param urls The asset urls, in merge order.
+     * @param parallelDefaults Whether the assets are parsed in parallel.
+     * @param bulkReload Whether the configuration takes part in bulk reloads.
      * @param logger The instance.
      * @param uuid The unique id for the configuration.
      */
-    AbstractConfiguration(InternalMessages internalMessages, Set<URL> urls, Logger logger, UUID uuid) {
-        this.internalMessages = internalMessages;
+    AbstractConfiguration(InternalMessages internalMessages, Set<URL> urls, boolean parallelDefaults, boolean bulkReload, Logger logger,
+            UUID uuid) {
+        this.log = new InternalLogger(logger, internalMessages);
         this.urls.addAll(urls);
-        this.logger = logger;
+        this.parallelDefaults = parallelDefaults;
+        this.bulkReload = bulkReload;
         this.uuid = uuid;
     }
 
+    @Override
+    public CompletableFuture<Void> loadAsync() {
+        return IoExecutor.run(this::load);
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return uuid;
+    }
+
     @Override
     public Optional<CommentedConfigurationNode> get() {
-        return Optional.ofNullable(node);
+        return Optional.ofNullable(live());
+    }
+
+    @Override
+    public ImmutableConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public <T> Optional<T> getValue(ConfigKey<T> key) {
+        checkNotNull(key, "key");
+
+        ImmutableConfigurationSnapshotImpl current = (ImmutableConfigurationSnapshotImpl) getSnapshot();
+        return current.getValue(key, e -> log.error(MessageKeys.CONFIGURATION_KEY_ERROR_NO_DEBUG, key, uuid, e));
+    }
+
+    @Override
+    public boolean commit(MutableConfigurationSnapshot snapshot) {
+        checkNotNull(snapshot, "snapshot");
+
+        MutableConfigurationSnapshotImpl mutable = (MutableConfigurationSnapshotImpl) snapshot;
+        ImmutableConfigurationSnapshotImpl committed = new ImmutableConfigurationSnapshotImpl(copy(mutable.getNode()));
+
+        synchronized (publishLock) {
+            if (this.snapshot != mutable.base) {
+                return false;
+            }
+
+            node = null;
+            this.snapshot = committed;
+            published = true;
+            return true;
+        }
+    }
+
+    /**
+     * Publishes a fully loaded node as the new state of the configuration.
+     *
+     * <p>The snapshot takes ownership of the node, so it must not be modified
+     *     or referenced by the loader after it was published. The node
+     *     handed out by {@link #get()} is only copied from it once requested.
+     *
+     * @param loaded The loaded node.
+     */
+    void publish(CommentedConfigurationNode loaded) {
+        ImmutableConfigurationSnapshotImpl snapshot = new ImmutableConfigurationSnapshotImpl(loaded);
+
+        synchronized (publishLock) {
+            node = null;
+            this.snapshot = snapshot;
+            published = true;
+        }
+    }
+
+    /**
+     * Publishes the node handed out by {@link #get()} as a new snapshot, so
+     *     changes made to it show in {@link #getSnapshot()}.
+     *
+     * <p>Nothing is copied if the node was never handed out since the last
+     *     load or commit, as the latest snapshot is then up to date.
+     */
+    void republish() {
+        synchronized (publishLock) {
+            CommentedConfigurationNode current = node;
+
+            if (current != null) {
+                snapshot = new ImmutableConfigurationSnapshotImpl(copy(current));
+            }
+        }
+    }
+
+    /**
+     * Gets the node handed out by {@link #get()}, copying it from the latest
+     *     snapshot on first access after a load or commit.
+     *
+     * @return The node, or {@code null} if the configuration was not loaded.
+     */
+    @Nullable
+    CommentedConfigurationNode live() {
+        CommentedConfigurationNode current = node;
+
+        if (current != null || !published) {
+            return current;
+        }
+
+        synchronized (publishLock) {
+            if (node == null) {
+                node = copy(snapshot.node);
+            }
+
+            return node;
+        }
+    }
+
+    /**
+     * Gets the current state of the configuration without copying it.
+     *
+     * <p>This is the node handed out by {@link #get()} if there is one, and
+     *     the node of the latest snapshot otherwise. It must not be modified.
+     *
+     * @return The node, or {@code null} if the configuration was not loaded.
+     */
+    @Nullable
+    CommentedConfigurationNode current() {
+        CommentedConfigurationNode current = node;
+
+        if (current != null || !published) {
+            return current;
+        }
+
+        return snapshot.node;
+    }
+
+    /**
+     * Merges the default assets into the target node.
+     *
+     * <p>The parsed assets are shared through the {@link AssetCache}. The
+     *     assets are always merged in the order they were added to the
+     *     builder, even when they are parsed in parallel. Assets parsed in
+     *     parallel are only merged once all of them are parsed, so the target
+     *     is left untouched if the calling thread is interrupted.
+     *
+     * @param target The node to merge the defaults into.
+     * @throws InterruptedIOException Thrown if the calling thread was
+     *     interrupted while waiting for the assets to be parsed.
+     */
+    void mergeDefaults(ConfigurationNode target) throws InterruptedIOException {
+        long start = System.nanoTime();
+
+        try {
+            mergeAssets(target);
+        } finally {
+            MERGES.recordSince(start);
+        }
+    }
+
+    private void mergeAssets(ConfigurationNode target) throws InterruptedIOException {
+        if (parallelDefaults && urls.size() > 1) {
+            List<Future<ConfigurationNode>> futures = urls.stream()
+                    .map(url -> IoExecutor.fork(() -> AssetCache.get(url)))
+                    .collect(Collectors.toList());
+            List<ConfigurationNode> parsed = new ArrayList<>();
+            int index = 0;
+
+            for (URL url : urls) {
+                try {
+                    log.debug(MessageKeys.CONFIGURATION_ASSET_LOAD_ATTEMPT, url, uuid);
+                    parsed.add(IoExecutor.join(futures.get(index++)));
+                } catch (ExecutionException e) {
+                    ASSET_ERRORS.increment();
+                    log.error(MessageKeys.CONFIGURATION_ASSET_LOAD_ERROR_NO_DEBUG, url, uuid, e.getCause());
+                } catch (InterruptedException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    Thread.currentThread().interrupt();
+
+                    InterruptedIOException exception = new InterruptedIOException("Interrupted while parsing the defaults of " + url);
+                    exception.initCause(e);
+                    throw exception;
+                }
+            }
+
+            parsed.forEach(target::mergeValuesFrom);
+            return;
+        }
+
+        urls.forEach(url -> {
+            try {
+                log.debug(MessageKeys.CONFIGURATION_ASSET_LOAD_ATTEMPT, url, uuid);
+                AssetCache.mergeInto(url, target);
+            } catch (IOException e) {
+                ASSET_ERRORS.increment();
+                log.error(MessageKeys.CONFIGURATION_ASSET_LOAD_ERROR_NO_DEBUG, url, uuid, e);
+            }
+        });
+    }
+
+    /**
+     * Creates a detached copy of a configuration node.
+     *
+     * @param source The node to copy.
+     * @return The copy.
+     */
+    static CommentedConfigurationNode copy(ConfigurationNode source) {
+        CommentedConfigurationNode copy = SimpleCommentedConfigurationNode.root();
+        copy.mergeValuesFrom(source);
+        return copy;
     }
 
     /**
@@ -86,7 +318,9 @@ public Optional<CommentedConfigurationNode> get() {
     abstract static class AbstractBuilder<T extends Configuration> implements Builder<T> {
 
         final InternalMessages internalMessages;
-        final Set<URL> urls = new HashSet<>();
+        final Set<URL> urls = new LinkedHashSet<>();
+        boolean parallelDefaults = false;
+        boolean bulkReload = false;
 
         /**
          * Constructs a new instance of {@link AbstractConfiguration.AbstractBuilder}.
@@ -129,6 +363,18 @@ public Builder<T> defaults(Collection<Asset> assets) {
             return getThis();
         }
 
+        @Override
+        public Builder<T> parallelDefaults(boolean parallel) {
+            parallelDefaults = parallel;
+            return getThis();
+        }
+
+        @Override
+        public Builder<T> bulkReload(boolean bulkReload) {
+            this.bulkReload = bulkReload;
+            return getThis();
+        }
+
         @Override
         @OverridingMethodsMustInvokeSuper
         public Builder<T> from(T value) {
@@ -136,6 +382,8 @@ public Builder<T> from(T value) {
 
             urls.clear();
             urls.addAll(((AbstractConfiguration)value).urls);
+            parallelDefaults = ((AbstractConfiguration)value).parallelDefaults;
+            bulkReload = ((AbstractConfiguration)value).bulkReload;
             return getThis();
         }
 
@@ -143,6 +391,8 @@ public Builder<T> from(T value) {
         @OverridingMethodsMustInvokeSuper
         public Builder<T> reset() {
             urls.clear();
+            parallelDefaults = false;
+            bulkReload = false;
             return getThis();
         }
 
@@ -0,0 +1,138 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A process wide cache of parsed default assets.
+ *
+ * <p>Default assets are shared between configurations and rarely change, so
+ *     each asset is only read and parsed once. The cached trees are never
+ *     handed out, they are only merged into other nodes, which keeps them
+ *     effectively immutable.
+ *
+ * <p>The cache is bounded by the total number of cached nodes.
+ */
+final class AssetCache {
+
+    private static final long MAXIMUM_NODES = 1L << 16;
+
+    private static final Cache<URL, ConfigurationNode> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(MAXIMUM_NODES)
+            .<URL, ConfigurationNode>weigher((url, node) -> count(node))
+            .build();
+
+    private static final Map<URL, HashCode> HASHES = new ConcurrentHashMap<>();
+
+    // Do not instantiate
+    private AssetCache() {
+    }
+
+    /**
+     * Merges the values of the asset into the target node.
+     *
+     * <p>The asset is parsed if it is not cached yet.
+     *
+     * @param url The asset url.
+     * @param target The node to merge the values into.
+     * @throws IOException Thrown if the asset could not be loaded.
+     */
+    static void mergeInto(URL url, ConfigurationNode target) throws IOException {
+        target.mergeValuesFrom(get(url));
+    }
+
+    /**
+     * Gets the parsed tree for the asset.
+     *
+     * <p>The returned node must not be modified.
+     *
+     * @param url The asset url.
+     * @return The parsed tree.
+     * @throws IOException Thrown if the asset could not be loaded.
+     */
+    static ConfigurationNode get(URL url) throws IOException {
+        try {
+            return CACHE.get(url, () -> HoconConfigurationLoader.builder().setURL(url).build().load());
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets a hash of the raw content of the asset.
+     *
+     * <p>Hashing only reads the asset, it does not parse it.
+     *
+     * @param url The asset url.
+     * @return The content hash.
+     * @throws IOException Thrown if the asset could not be read.
+     */
+    static HashCode hash(URL url) throws IOException {
+        HashCode hash = HASHES.get(url);
+
+        if (hash == null) {
+            hash = Hashing.murmur3_128().hashBytes(Resources.toByteArray(url));
+            HASHES.put(url, hash);
+        }
+
+        return hash;
+    }
+
+    private static int count(ConfigurationNode node) {
+        int count = 1;
+
+        if (node.hasMapChildren()) {
+            for (ConfigurationNode child : node.getChildrenMap().values()) {
+                count += count(child);
+            }
+        } else if (node.hasListChildren()) {
+            for (ConfigurationNode child : node.getChildrenList()) {
+                count += count(child);
+            }
+        }
+
+        return count;
+    }
+
+}
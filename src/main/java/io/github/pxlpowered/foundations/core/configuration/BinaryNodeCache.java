@@ -0,0 +1,394 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads and writes compact binary caches of fully merged configuration nodes.
+ *
+ * <p>A cache is only valid for the exact file and default assets it was
+ *     written for. It records the modification time and size of the file
+ *     and a hash over the content of the default assets, in merge order.
+ *
+ * <p>Next to the merged node, the cache holds the {@link NodeFingerprint}s of
+ *     the file as it was before the defaults were merged, so a configuration
+ *     loaded from the cache knows whether its defaults still have to be
+ *     saved.
+ */
+final class BinaryNodeCache {
+
+    private static final int MAGIC = 0x464E4443;
+    private static final int FORMAT = 2;
+
+    private static final byte NULL = 0;
+    private static final byte MAP = 1;
+    private static final byte LIST = 2;
+    private static final byte STRING = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte INTEGER = 5;
+    private static final byte LONG = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte FLOAT = 8;
+
+    // Deeper nesting is treated as corruption, it would overflow the stack while reading
+    private static final int MAXIMUM_DEPTH = 256;
+
+    // Do not instantiate
+    private BinaryNodeCache() {
+    }
+
+    /**
+     * Creates the validation key for a configuration file and its defaults.
+     *
+     * @param file The configuration file.
+     * @param urls The default asset urls, in merge order.
+     * @return The validation key.
+     * @throws IOException Thrown if the file or an asset could not be read.
+     */
+    static byte[] key(Path file, Set<URL> urls) throws IOException {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        if (Files.exists(file)) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            hasher.putLong(attributes.lastModifiedTime().toMillis());
+            hasher.putLong(attributes.size());
+        } else {
+            hasher.putLong(-1L);
+        }
+
+        for (URL url : urls) {
+            hasher.putBytes(AssetCache.hash(url).asBytes());
+        }
+
+        return hasher.hash().asBytes();
+    }
+
+    /**
+     * Reads a cached node if the cache is valid for the key.
+     *
+     * @param cache The cache file.
+     * @param key The expected validation key.
+     * @return The cached entry, {@link Optional#empty()} if there is no valid
+     *     cache.
+     * @throws IOException Thrown if the cache could not be read or is
+     *     corrupted.
+     */
+    static Optional<Entry> read(Path cache, byte[] key) throws IOException {
+        if (!Files.exists(cache)) {
+            return Optional.empty();
+        }
+
+        // No length in a valid cache can exceed the size of the file
+        long limit = Files.size(cache);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                return Optional.empty();
+            }
+
+            byte[] cachedKey = new byte[in.readUnsignedByte()];
+            in.readFully(cachedKey);
+
+            if (!Arrays.equals(key, cachedKey)) {
+                return Optional.empty();
+            }
+
+            int sections = readLength(in, limit);
+            Map<Object, HashCode> fingerprints = new HashMap<>();
+
+            for (int i = 0; i < sections; i++) {
+                Object section = in.readBoolean() ? NodeFingerprint.ROOT : readString(in, limit);
+                byte[] hash = new byte[in.readUnsignedByte()];
+
+                in.readFully(hash);
+                fingerprints.put(section, HashCode.fromBytes(hash));
+            }
+
+            CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root();
+            readNode(in, node, limit, 0);
+            return Optional.of(new Entry(node, ImmutableMap.copyOf(fingerprints)));
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted cache " + cache, e);
+        }
+    }
+
+    /**
+     * Writes a node to the cache.
+     *
+     * <p>The cache is written to a temporary file first which is then moved
+     *     over the cache file.
+     *
+     * @param cache The cache file.
+     * @param key The validation key.
+     * @param node The node to cache.
+     * @param fingerprints The fingerprints of the file before the defaults
+     *     were merged.
+     * @throws IOException Thrown if the cache could not be written.
+     */
+    static void write(Path cache, byte[] key, ConfigurationNode node, Map<Object, HashCode> fingerprints) throws IOException {
+        Path tmp = cache.resolveSibling(cache.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeByte(key.length);
+            out.write(key);
+            out.writeInt(fingerprints.size());
+
+            for (Map.Entry<Object, HashCode> entry : fingerprints.entrySet()) {
+                boolean root = entry.getKey() == NodeFingerprint.ROOT;
+                byte[] hash = entry.getValue().asBytes();
+
+                out.writeBoolean(root);
+
+                if (!root) {
+                    writeString(out, entry.getKey().toString());
+                }
+
+                out.writeByte(hash.length);
+                out.write(hash);
+            }
+
+            writeNode(out, node);
+        }
+
+        try {
+            Files.move(tmp, cache, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeNode(DataOutputStream out, ConfigurationNode node) throws IOException {
+        Optional<String> comment = node instanceof CommentedConfigurationNode
+                ? ((CommentedConfigurationNode) node).getComment()
+                : Optional.empty();
+
+        out.writeBoolean(comment.isPresent());
+
+        if (comment.isPresent()) {
+            writeString(out, comment.get());
+        }
+
+        if (node.hasMapChildren()) {
+            Map<Object, ? extends ConfigurationNode> children = node.getChildrenMap();
+
+            out.writeByte(MAP);
+            out.writeInt(children.size());
+
+            for (Map.Entry<Object, ? extends ConfigurationNode> entry : children.entrySet()) {
+                writeString(out, entry.getKey().toString());
+                writeNode(out, entry.getValue());
+            }
+        } else if (node.hasListChildren()) {
+            out.writeByte(LIST);
+            out.writeInt(node.getChildrenList().size());
+
+            for (ConfigurationNode child : node.getChildrenList()) {
+                writeNode(out, child);
+            }
+        } else {
+            writeScalar(out, node.getValue());
+        }
+    }
+
+    private static void writeScalar(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Map) {
+            // An empty map, as maps with children are handled by writeNode
+            out.writeByte(MAP);
+            out.writeInt(0);
+        } else if (value instanceof Iterable) {
+            out.writeByte(LIST);
+            out.writeInt(0);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else {
+            throw new IOException("Can not cache value of type " + value.getClass().getName());
+        }
+    }
+
+    private static void readNode(DataInputStream in, ConfigurationNode node, long limit, int depth) throws IOException {
+        if (depth > MAXIMUM_DEPTH) {
+            throw new IOException("Nodes nested deeper than " + MAXIMUM_DEPTH);
+        }
+
+        if (in.readBoolean() && node instanceof CommentedConfigurationNode) {
+            ((CommentedConfigurationNode) node).setComment(readString(in, limit));
+        }
+
+        byte type = in.readByte();
+
+        switch (type) {
+            case NULL:
+                break;
+            case MAP:
+                int entries = readLength(in, limit);
+
+                if (entries == 0) {
+                    node.setValue(ImmutableMap.of());
+                }
+
+                for (int i = 0; i < entries; i++) {
+                    readNode(in, node.getNode(readString(in, limit)), limit, depth + 1);
+                }
+                break;
+            case LIST:
+                int elements = readLength(in, limit);
+
+                if (elements == 0) {
+                    node.setValue(ImmutableList.of());
+                }
+
+                for (int i = 0; i < elements; i++) {
+                    readNode(in, node.getAppendedNode(), limit, depth + 1);
+                }
+                break;
+            case STRING:
+                node.setValue(readString(in, limit));
+                break;
+            case BOOLEAN:
+                node.setValue(in.readBoolean());
+                break;
+            case INTEGER:
+                node.setValue(in.readInt());
+                break;
+            case LONG:
+                node.setValue(in.readLong());
+                break;
+            case DOUBLE:
+                node.setValue(in.readDouble());
+                break;
+            case FLOAT:
+                node.setValue(in.readFloat());
+                break;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long limit) throws IOException {
+        byte[] bytes = new byte[readLength(in, limit)];
+
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(DataInputStream in, long limit) throws IOException {
+        int length = in.readInt();
+
+        if (length < 0 || length > limit) {
+            throw new IOException("Invalid length " + length);
+        }
+
+        return length;
+    }
+
+    /**
+     * A node read from the cache.
+     */
+    static final class Entry {
+
+        private final CommentedConfigurationNode node;
+        private final Map<Object, HashCode> fingerprints;
+
+        private Entry(CommentedConfigurationNode node, Map<Object, HashCode> fingerprints) {
+            this.node = node;
+            this.fingerprints = fingerprints;
+        }
+
+        /**
+         * Gets the merged node.
+         *
+         * @return The node.
+         */
+        CommentedConfigurationNode getNode() {
+            return node;
+        }
+
+        /**
+         * Gets the fingerprints of the file before the defaults were merged.
+         *
+         * @return The fingerprints.
+         */
+        Map<Object, HashCode> getFingerprints() {
+            return fingerprints;
+        }
+
+    }
+
+}
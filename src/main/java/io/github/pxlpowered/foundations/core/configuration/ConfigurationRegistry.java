@@ -0,0 +1,211 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+import io.github.pxlpowered.foundations.api.configuration.Configuration;
+import io.github.pxlpowered.foundations.core.concurrent.IoExecutor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+/**
+ * Tracks every {@link Configuration} built through the Foundations builders.
+ *
+ * <p>Configurations are held weakly, so registering a configuration does not
+ *     keep it alive. Bulk reloads run in parallel on the
+ *     {@link IoExecutor}, so reloading many configurations takes about as
+ *     long as the slowest one. Only
+ *     configurations built with
+ *     {@link Configuration.Builder#bulkReload(boolean) bulk reload} enabled
+ *     take part in them.
+ */
+public final class ConfigurationRegistry {
+
+    private static final Set<Configuration> CONFIGURATIONS = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+    // Do not instantiate
+    private ConfigurationRegistry() {
+    }
+
+    /**
+     * Registers a configuration.
+     *
+     * @param configuration The configuration.
+     * @param <T> The type of configuration.
+     * @return The configuration.
+     */
+    static <T extends Configuration> T register(T configuration) {
+        CONFIGURATIONS.add(configuration);
+        return configuration;
+    }
+
+    /**
+     * Gets all registered configurations.
+     *
+     * @return The configurations.
+     */
+    public static Collection<Configuration> getAll() {
+        return ImmutableList.copyOf(CONFIGURATIONS);
+    }
+
+    /**
+     * Gets a registered configuration by its unique id.
+     *
+     * @param uniqueId The unique id.
+     * @return The configuration, {@link Optional#empty()} otherwise.
+     */
+    public static Optional<Configuration> get(UUID uniqueId) {
+        checkNotNull(uniqueId, "uniqueId");
+
+        return getAll().stream().filter(configuration -> configuration.getUniqueId().equals(uniqueId)).findFirst();
+    }
+
+    /**
+     * Reloads all configurations which take part in bulk reloads in
+     *     parallel.
+     *
+     * @return The result for each configuration.
+     */
+    public static List<ReloadResult> reloadAll() {
+        return reload(configuration -> true);
+    }
+
+    /**
+     * Reloads the configurations which take part in bulk reloads and match
+     *     the filter in parallel.
+     *
+     * <p>Blocks until all matching configurations were reloaded.
+     *
+     * @param filter The filter.
+     * @return The result for each reloaded configuration.
+     */
+    public static List<ReloadResult> reload(Predicate<? super Configuration> filter) {
+        checkNotNull(filter, "filter");
+
+        List<Future<ReloadResult>> futures = getAll().stream()
+                .filter(configuration -> ((AbstractConfiguration) configuration).bulkReload)
+                .filter(filter)
+                .map(configuration -> IoExecutor.fork(() -> reload(configuration)))
+                .collect(Collectors.toList());
+        ImmutableList.Builder<ReloadResult> results = ImmutableList.builder();
+        boolean interrupted = false;
+
+        for (Future<ReloadResult> future : futures) {
+            while (true) {
+                try {
+                    results.add(IoExecutor.join(future));
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // reload(Configuration) catches everything
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return results.build();
+    }
+
+    private static ReloadResult reload(Configuration configuration) {
+        long start = System.nanoTime();
+
+        try {
+            configuration.load();
+            return new ReloadResult(configuration, System.nanoTime() - start, null);
+        } catch (RuntimeException e) {
+            return new ReloadResult(configuration, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * The result of reloading a single configuration.
+     */
+    public static final class ReloadResult {
+
+        private final Configuration configuration;
+        private final long duration;
+        @Nullable private final Throwable error;
+
+        private ReloadResult(Configuration configuration, long duration, @Nullable Throwable error) {
+            this.configuration = configuration;
+            this.duration = duration;
+            this.error = error;
+        }
+
+        /**
+         * Gets the reloaded configuration.
+         *
+         * @return The configuration.
+         */
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        /**
+         * Gets how long the reload took.
+         *
+         * @param unit The unit to return the duration in.
+         * @return The duration.
+         */
+        public long getDuration(TimeUnit unit) {
+            return unit.convert(duration, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Gets the error thrown while reloading, if any.
+         *
+         * <p>Errors the configuration handles itself, like a file that could
+         *     not be read, are logged by the configuration instead.
+         *
+         * @return The error, {@link Optional#empty()} otherwise.
+         */
+        public Optional<Throwable> getError() {
+            return Optional.ofNullable(error);
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.google.common.collect.MapMaker;
+import io.github.pxlpowered.foundations.core.concurrent.IoExecutor;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Watches the files of hot reloading {@link PersistentConfigurationImpl}s.
+ *
+ * <p>A single thread serves all registered configurations. Changes are
+ *     debounced per configuration, so a burst of writes from an editor only
+ *     causes a single reload check once the file was left alone for the
+ *     debounce time. The reloads run on the {@link IoExecutor}, so a slow
+ *     parse does not hold up the other watched files.
+ */
+final class ConfigurationWatcher {
+
+    private static final Map<Path, Set<PersistentConfigurationImpl>> FILES = new ConcurrentHashMap<>();
+    private static final Map<Path, WatchKey> DIRECTORIES = new HashMap<>();
+
+    @Nullable private static WatchService service;
+
+    // Do not instantiate
+    private ConfigurationWatcher() {
+    }
+
+    /**
+     * Registers a configuration to be watched.
+     *
+     * @param configuration The configuration.
+     * @param file The file of the configuration.
+     * @throws IOException Thrown if the directory of the file could not be
+     *     watched.
+     */
+    static synchronized void register(PersistentConfigurationImpl configuration, Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        Path directory = path.getParent();
+
+        if (directory == null) {
+            throw new IOException("No parent directory to watch for " + path);
+        }
+
+        WatchService watchService = getService();
+
+        if (!DIRECTORIES.containsKey(directory)) {
+            DIRECTORIES.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY));
+        }
+
+        FILES.computeIfAbsent(path, key -> Collections.newSetFromMap(new MapMaker().weakKeys().makeMap())).add(configuration);
+    }
+
+    private static synchronized WatchService getService() throws IOException {
+        if (service == null) {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(() -> watch(watchService), "foundations-configuration-watcher");
+
+            thread.setDaemon(true);
+            thread.start();
+            service = watchService;
+        }
+
+        return service;
+    }
+
+    private static void watch(WatchService watchService) {
+        Map<PersistentConfigurationImpl, Long> deadlines = new HashMap<>();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+
+            try {
+                key = deadlines.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(untilNextDeadline(deadlines), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (key != null) {
+                Path directory = (Path) key.watchable();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        FILES.forEach((file, configurations) -> {
+                            if (directory.equals(file.getParent())) {
+                                configurations.forEach(configuration -> debounce(deadlines, configuration));
+                            }
+                        });
+                    } else {
+                        Set<PersistentConfigurationImpl> configurations = FILES.get(directory.resolve((Path) event.context()));
+
+                        if (configurations != null) {
+                            configurations.forEach(configuration -> debounce(deadlines, configuration));
+                        }
+                    }
+                }
+
+                key.reset();
+            }
+
+            long now = System.nanoTime();
+
+            for (Iterator<Map.Entry<PersistentConfigurationImpl, Long>> it = deadlines.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<PersistentConfigurationImpl, Long> entry = it.next();
+
+                if (entry.getValue() - now <= 0) {
+                    it.remove();
+                    IoExecutor.getExecutor().execute(entry.getKey()::reloadIfChanged);
+                }
+            }
+        }
+    }
+
+    private static void debounce(Map<PersistentConfigurationImpl, Long> deadlines, PersistentConfigurationImpl configuration) {
+        deadlines.put(configuration, System.nanoTime() + configuration.hotReload);
+    }
+
+    private static long untilNextDeadline(Map<PersistentConfigurationImpl, Long> deadlines) {
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+
+        for (long deadline : deadlines.values()) {
+            next = Math.min(next, deadline - now);
+        }
+
+        return Math.max(0L, next);
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import io.github.pxlpowered.foundations.core.concurrent.IoExecutor;
+import io.github.pxlpowered.foundations.core.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handles write-behind and asynchronous saves for
+ *     {@link PersistentConfigurationImpl}s.
+ *
+ * <p>All write-behind saves are written on a single background thread, which
+ *     keeps them in order and delays them without holding a thread of the
+ *     {@link IoExecutor}. Asynchronous saves without a window are written on
+ *     the {@link IoExecutor} and tracked until they are done, so both kinds
+ *     are written before the server stops. The queue depth and save latency
+ *     are exposed so it can be told when disk I/O falls behind.
+ */
+public final class ConfigurationWriter {
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "foundations-configuration-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ConcurrentMap<PersistentConfigurationImpl, CompletableFuture<Void>> PENDING = new ConcurrentHashMap<>();
+    private static final Set<CompletableFuture<Void>> WRITING = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicLong WRITES = new AtomicLong();
+    private static final AtomicLong TOTAL_LATENCY = new AtomicLong();
+    private static volatile long lastLatency = 0L;
+
+    static {
+        MetricsRegistry.gauge("configuration.writer.queue", ConfigurationWriter::getQueueDepth);
+        MetricsRegistry.gauge("configuration.writer.writes", ConfigurationWriter::getWriteCount);
+        MetricsRegistry.gauge("configuration.writer.latency.last", () -> getLastLatency(TimeUnit.MICROSECONDS));
+        MetricsRegistry.gauge("configuration.writer.latency.mean", () -> getAverageLatency(TimeUnit.MICROSECONDS));
+    }
+
+    // Do not instantiate
+    private ConfigurationWriter() {
+    }
+
+    /**
+     * Schedules a write for the configuration if there is not one pending.
+     *
+     * @param configuration The configuration.
+     * @param window The time in nanoseconds to wait before writing.
+     * @return A future completed on the writer thread once the pending write
+     *     is done.
+     */
+    static CompletableFuture<Void> schedule(PersistentConfigurationImpl configuration, long window) {
+        return PENDING.computeIfAbsent(configuration, key -> {
+            EXECUTOR.schedule(() -> write(key), window, TimeUnit.NANOSECONDS);
+            return new CompletableFuture<>();
+        });
+    }
+
+    /**
+     * Writes the pending save of the configuration on the {@link IoExecutor}.
+     *
+     * @param configuration The configuration.
+     * @return A future completed on the I/O thread once the write is done.
+     */
+    static CompletableFuture<Void> writeAsync(PersistentConfigurationImpl configuration) {
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                configuration.writePending();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, IoExecutor.getExecutor());
+
+        WRITING.add(future);
+        future.whenComplete((result, e) -> WRITING.remove(future));
+        return future;
+    }
+
+    /**
+     * Writes all pending saves on the calling thread.
+     *
+     * <p>This is called when the server stops so no saves are lost. The
+     *     asynchronous writes running on the {@link IoExecutor} and the write
+     *     already running on the writer thread are waited for first, as they
+     *     were taken off the queue when they started.
+     */
+    public static void flush() {
+        for (CompletableFuture<Void> future : WRITING) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // The configuration logged the failed write already
+            }
+        }
+
+        try {
+            // The writer is a single thread, so this runs once the write in progress is done
+            EXECUTOR.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        PENDING.keySet().forEach(ConfigurationWriter::write);
+    }
+
+    /**
+     * Gets the number of configurations waiting to be written.
+     *
+     * @return The queue depth.
+     */
+    public static int getQueueDepth() {
+        return PENDING.size();
+    }
+
+    /**
+     * Gets the number of write-behind saves written so far.
+     *
+     * @return The write count.
+     */
+    public static long getWriteCount() {
+        return WRITES.get();
+    }
+
+    /**
+     * Gets the time the last write-behind save took.
+     *
+     * @param unit The unit to return the latency in.
+     * @return The latency.
+     */
+    public static long getLastLatency(TimeUnit unit) {
+        return unit.convert(lastLatency, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the average time a write-behind save took.
+     *
+     * @param unit The unit to return the latency in.
+     * @return The latency, or {@code 0} if nothing was written yet.
+     */
+    public static long getAverageLatency(TimeUnit unit) {
+        long writes = WRITES.get();
+        return writes == 0 ? 0L : unit.convert(TOTAL_LATENCY.get() / writes, TimeUnit.NANOSECONDS);
+    }
+
+    private static void write(PersistentConfigurationImpl configuration) {
+        CompletableFuture<Void> future = PENDING.remove(configuration);
+
+        if (future == null) {
+            // Written by a flush already
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            if (configuration.writePending()) {
+                long latency = System.nanoTime() - start;
+
+                lastLatency = latency;
+                TOTAL_LATENCY.addAndGet(latency);
+                WRITES.incrementAndGet();
+            }
+
+            future.complete(null);
+        } catch (IOException e) {
+            // The configuration logged the failed write already
+            future.completeExceptionally(e);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+}
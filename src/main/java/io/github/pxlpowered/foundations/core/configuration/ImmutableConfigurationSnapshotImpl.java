@@ -0,0 +1,215 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.TypeToken;
+import io.github.pxlpowered.foundations.api.configuration.ConfigKey;
+import io.github.pxlpowered.foundations.api.configuration.ImmutableConfigurationSnapshot;
+import io.github.pxlpowered.foundations.api.configuration.MutableConfigurationSnapshot;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+/**
+ * The implementation for {@link ImmutableConfigurationSnapshot}.
+ *
+ * <p>The node held by the snapshot is never handed out, so it can not change
+ *     after the snapshot was created.
+ */
+public final class ImmutableConfigurationSnapshotImpl implements ImmutableConfigurationSnapshot {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = ImmutableSet.of(String.class, Boolean.class, Character.class, Byte.class,
+            Short.class, Integer.class, Long.class, Float.class, Double.class, UUID.class, URI.class, URL.class, Pattern.class);
+    private static final Object MUTABLE = new Object();
+
+    final CommentedConfigurationNode node;
+    private final Map<ConfigKey<?>, Optional<?>> values = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance of {@link ImmutableConfigurationSnapshotImpl}.
+     *
+     * @param node The node, which must not be referenced anywhere else.
+     */
+    ImmutableConfigurationSnapshotImpl(CommentedConfigurationNode node) {
+        this.node = node;
+    }
+
+    @Override
+    public Optional<Object> getValue(Object... path) {
+        checkNotNull(path, "path");
+
+        ConfigurationNode tmp = node.getNode(path);
+        return tmp.isVirtual() ? Optional.empty() : Optional.ofNullable(tmp.getValue());
+    }
+
+    @Override
+    public <T> Optional<T> getValue(TypeToken<T> type, Object... path) throws ObjectMappingException {
+        checkNotNull(type, "type");
+        checkNotNull(path, "path");
+
+        ConfigurationNode tmp = node.getNode(path);
+        return tmp.isVirtual() ? Optional.empty() : Optional.ofNullable(tmp.getValue(type));
+    }
+
+    /**
+     * Gets the cached value of a key, deserializing it on first access.
+     *
+     * <p>As the snapshot never changes, the cached value never goes stale.
+     *     Only values which can not be changed by callers are cached, see
+     *     {@link #freeze(Object)}. Other values are deserialized on every
+     *     access.
+     *
+     * @param key The key.
+     * @param onError Called if the value could not be deserialized.
+     * @param <T> The type of the value.
+     * @return The value, {@link Optional#empty()} otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Optional<T> getValue(ConfigKey<T> key, Consumer<ObjectMappingException> onError) {
+        Optional<?> value = values.get(key);
+
+        if (value == null) {
+            try {
+                value = key.getValue(node);
+            } catch (ObjectMappingException e) {
+                onError.accept(e);
+                value = Optional.empty();
+            }
+
+            if (value.isPresent()) {
+                Object frozen = freeze(value.get());
+
+                if (frozen == MUTABLE || !key.getType().getRawType().isInstance(frozen)) {
+                    return (Optional<T>) value;
+                }
+
+                value = Optional.of(frozen);
+            }
+
+            Optional<?> previous = values.putIfAbsent(key, value);
+
+            if (previous != null) {
+                value = previous;
+            }
+        }
+
+        return (Optional<T>) value;
+    }
+
+    @Override
+    public MutableConfigurationSnapshot asMutable() {
+        return new MutableConfigurationSnapshotImpl(this, AbstractConfiguration.copy(node));
+    }
+
+    /**
+     * Gets a value which can be shared by all callers.
+     *
+     * <p>Immutable values are returned as they are. Lists, sets and maps of
+     *     immutable values are copied into unmodifiable collections.
+     *
+     * @param value The value.
+     * @return The shareable value, or {@link #MUTABLE} if the value can not
+     *     be shared.
+     */
+    @Nullable
+    private static Object freeze(@Nullable Object value) {
+        if (value == null || value instanceof Enum || IMMUTABLE_TYPES.contains(value.getClass())) {
+            return value;
+        }
+
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+
+            for (Object element : (List<?>) value) {
+                Object frozen = freeze(element);
+
+                if (frozen == MUTABLE) {
+                    return MUTABLE;
+                }
+
+                copy.add(frozen);
+            }
+
+            return Collections.unmodifiableList(copy);
+        }
+
+        if (value instanceof Set) {
+            Set<Object> copy = new LinkedHashSet<>();
+
+            for (Object element : (Set<?>) value) {
+                Object frozen = freeze(element);
+
+                if (frozen == MUTABLE) {
+                    return MUTABLE;
+                }
+
+                copy.add(frozen);
+            }
+
+            return Collections.unmodifiableSet(copy);
+        }
+
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object key = freeze(entry.getKey());
+                Object frozen = freeze(entry.getValue());
+
+                if (key == MUTABLE || frozen == MUTABLE) {
+                    return MUTABLE;
+                }
+
+                copy.put(key, frozen);
+            }
+
+            return Collections.unmodifiableMap(copy);
+        }
+
+        return MUTABLE;
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Computes content fingerprints of configuration nodes.
+ *
+ * <p>Fingerprints are kept per top level section, so sections which were
+ *     never parsed can be left out when comparing lazily loaded
+ *     configurations.
+ */
+final class NodeFingerprint {
+
+    /**
+     * The key used when the root node is not a map.
+     */
+    static final Object ROOT = new Object();
+
+    // Do not instantiate
+    private NodeFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprints of the top level sections of a node.
+     *
+     * @param root The root node.
+     * @return The fingerprint for each section.
+     */
+    static Map<Object, HashCode> of(ConfigurationNode root) {
+        if (!root.hasMapChildren()) {
+            return root.getValue() == null ? ImmutableMap.of() : ImmutableMap.of(ROOT, hash(root));
+        }
+
+        ImmutableMap.Builder<Object, HashCode> builder = ImmutableMap.builder();
+        root.getChildrenMap().forEach((key, child) -> builder.put(key, hash(child)));
+        return builder.build();
+    }
+
+    /**
+     * Computes the fingerprint of a node and all of its children.
+     *
+     * @param node The node.
+     * @return The fingerprint.
+     */
+    static HashCode hash(ConfigurationNode node) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        put(hasher, node);
+        return hasher.hash();
+    }
+
+    private static void put(Hasher hasher, ConfigurationNode node) {
+        if (node instanceof CommentedConfigurationNode) {
+            Optional<String> comment = ((CommentedConfigurationNode) node).getComment();
+
+            hasher.putBoolean(comment.isPresent());
+            comment.ifPresent(value -> hasher.putString(value, StandardCharsets.UTF_8));
+        }
+
+        if (node.hasMapChildren()) {
+            hasher.putByte((byte) 1).putInt(node.getChildrenMap().size());
+
+            node.getChildrenMap().forEach((key, child) -> {
+                hasher.putString(key.toString(), StandardCharsets.UTF_8);
+                put(hasher, child);
+            });
+        } else if (node.hasListChildren()) {
+            hasher.putByte((byte) 2).putInt(node.getChildrenList().size());
+            node.getChildrenList().forEach(child -> put(hasher, child));
+        } else {
+            Object value = node.getValue();
+
+            hasher.putByte((byte) 3);
+
+            if (value != null) {
+                hasher.putString(value.getClass().getName(), StandardCharsets.UTF_8).putString(value.toString(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+}
@@ -25,21 +25,45 @@
 
 package io.github.pxlpowered.foundations.core.configuration;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import io.github.pxlpowered.foundations.api.configuration.Configuration;
+import io.github.pxlpowered.foundations.api.configuration.ImmutableConfigurationSnapshot;
 import io.github.pxlpowered.foundations.api.configuration.PersistentConfiguration;
+import io.github.pxlpowered.foundations.core.concurrent.IoExecutor;
 import io.github.pxlpowered.foundations.core.message.internal.InternalMessages;
+import io.github.pxlpowered.foundations.core.message.internal.MessageKeys;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
 import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import ninja.leaping.configurate.loader.ConfigurationLoader;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 import javax.annotation.Nullable;
 import javax.annotation.OverridingMethodsMustInvokeSuper;
@@ -50,55 +74,462 @@
 public final class PersistentConfigurationImpl extends AbstractConfiguration implements PersistentConfiguration {
 
     private final Path path;
+    private final long writeBehind;
+    final long hotReload;
+    @Nullable private final Path binaryCache;
+    private final boolean lazySections;
+    private final AtomicReference<CommentedConfigurationNode> pending = new AtomicReference<>();
+    private final Object saveLock = new Object();
+    private final Object writeLock = new Object();
+    private final Object loadLock = new Object();
+    private final Object sectionLock = new Object();
+    private final Set<String> materialized = new HashSet<>();
 
-    @Nullable private ConfigurationLoader<CommentedConfigurationNode> loader;
+    @Nullable private volatile ConfigurationLoader<CommentedConfigurationNode> loader;
+    @Nullable private volatile HashCode contentHash;
+    @Nullable private volatile SectionIndex sections;
+    @Nullable private volatile Map<Object, HashCode> saved = ImmutableMap.of();
+    private volatile boolean watching = false;
 
-    private PersistentConfigurationImpl(InternalMessages internalMessages, Set<URL> urls, Path path, Logger logger, UUID uuid) {
-        super(internalMessages, urls, logger, uuid);
+    private PersistentConfigurationImpl(InternalMessages internalMessages, Set<URL> urls, boolean parallelDefaults, boolean bulkReload,
+            Path path, long writeBehind, long hotReload, @Nullable Path binaryCache, boolean lazySections, Logger logger, UUID uuid) {
+        super(internalMessages, urls, parallelDefaults, bulkReload, logger, uuid);
         this.path = path;
+        this.writeBehind = writeBehind;
+        this.hotReload = hotReload;
+        this.binaryCache = binaryCache;
+        this.lazySections = lazySections;
     }
 
     @Override
     public void load() {
+        // Loads may come from the server thread, the I/O executor and the watcher, the last one to start must publish last
+        synchronized (loadLock) {
+            long start = System.nanoTime();
+
+            try {
+                loadNode();
+            } finally {
+                LOADS.recordSince(start);
+            }
+        }
+    }
+
+    private void loadNode() {
         //noinspection ConstantConditions
         if (loader == null) {
-            logger.debug(internalMessages.getLog("configuration.load.loader-null"), uuid);
+            log.debug(MessageKeys.CONFIGURATION_LOAD_LOADER_NULL, uuid);
             loader = HoconConfigurationLoader.builder().setPath(path).build();
         }
 
+        if (hotReload > 0 && !watching) {
+            try {
+                ConfigurationWatcher.register(this, path);
+                watching = true;
+                log.debug(MessageKeys.CONFIGURATION_WATCH_REGISTER, path, uuid);
+            } catch (IOException e) {
+                log.error(MessageKeys.CONFIGURATION_WATCH_REGISTER_ERROR_NO_DEBUG, path, uuid, e);
+            }
+        }
+
         try {
-            logger.debug(internalMessages.getLog("configuration.load.attempt"), uuid);
-            node = loader.load();
-            // try catch prevents null
-            assert node != null;
+            log.debug(MessageKeys.CONFIGURATION_LOAD_ATTEMPT, uuid);
+
+            if (watching) {
+                contentHash = hash();
+            }
+
+            byte[] cacheKey = null;
+
+            if (binaryCache != null) {
+                try {
+                    cacheKey = BinaryNodeCache.key(path, urls);
+                    Optional<BinaryNodeCache.Entry> cached = BinaryNodeCache.read(binaryCache, cacheKey);
+
+                    if (cached.isPresent()) {
+                        synchronized (sectionLock) {
+                            sections = null;
+                            saved = cached.get().getFingerprints();
+                            publish(cached.get().getNode());
+                        }
+
+                        log.debug(MessageKeys.CONFIGURATION_CACHE_HIT, binaryCache, uuid);
+                        log.debug(MessageKeys.CONFIGURATION_LOAD_SUCCESS, uuid);
+                        return;
+                    }
+                } catch (IOException e) {
+                    log.debug(MessageKeys.CONFIGURATION_CACHE_READ_ERROR, binaryCache, uuid, e);
+                }
+            }
+
+            if (lazySections && Files.exists(path)) {
+                Optional<SectionIndex> index = SectionIndex.map(path);
+
+                if (index.isPresent()) {
+                    synchronized (sectionLock) {
+                        materialized.clear();
+                        sections = index.get();
+                        saved = ImmutableMap.of();
+                        publish(SimpleCommentedConfigurationNode.root());
+                    }
 
-            urls.forEach(url -> {
+                    log.debug(MessageKeys.CONFIGURATION_SECTION_INDEXED, index.get().keys().size(), uuid);
+                    log.debug(MessageKeys.CONFIGURATION_LOAD_SUCCESS, uuid);
+                    return;
+                }
+
+                log.debug(MessageKeys.CONFIGURATION_SECTION_NOT_INDEXABLE, path, uuid);
+            }
+
+            CommentedConfigurationNode loaded = loader.load();
+            // The file is clean, defaults merged into it still have to be written
+            Map<Object, HashCode> fingerprints = NodeFingerprint.of(loaded);
+
+            mergeDefaults(loaded);
+
+            if (binaryCache != null && cacheKey != null) {
                 try {
-                    logger.debug(internalMessages.getLog("configuration.asset.load.attempt"), url, uuid);
-                    node.mergeValuesFrom(HoconConfigurationLoader.builder().setURL(url).build().load());
+                    BinaryNodeCache.write(binaryCache, cacheKey, loaded, fingerprints);
                 } catch (IOException e) {
-                    logger.error(internalMessages.getStringFormatted("configuration.asset.load.error.debug", url, uuid), e);
+                    log.debug(MessageKeys.CONFIGURATION_CACHE_WRITE_ERROR, binaryCache, uuid, e);
+                }
+            }
+
+            synchronized (sectionLock) {
+                sections = null;
+                saved = fingerprints;
+                publish(loaded);
+            }
+
+            log.debug(MessageKeys.CONFIGURATION_LOAD_SUCCESS, uuid);
+        } catch (IOException e) {
+            LOAD_ERRORS.increment();
+            log.error(MessageKeys.CONFIGURATION_LOAD_ERROR_NO_DEBUG, uuid, e);
+        }
+    }
+
+    @Override
+    public Optional<CommentedConfigurationNode> get() {
+        materializeAll();
+        return super.get();
+    }
+
+    @Override
+    public ImmutableConfigurationSnapshot getSnapshot() {
+        materializeAll();
+        return super.getSnapshot();
+    }
+
+    @Override
+    public Optional<CommentedConfigurationNode> getSection(String key) {
+        checkNotNull(key, "key");
+
+        if (sections != null) {
+            synchronized (sectionLock) {
+                SectionIndex index = sections;
+
+                if (index != null && materialized.add(key)) {
+                    materialize(index, Collections.singleton(key), key::equals);
                 }
-            });
+            }
+        }
+
+        CommentedConfigurationNode current = live();
+
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        CommentedConfigurationNode section = current.getNode(key);
+        return section.isVirtual() ? Optional.empty() : Optional.of(section);
+    }
+
+    /**
+     * Parses all sections which were not accessed yet and publishes the
+     *     complete configuration.
+     */
+    private void materializeAll() {
+        if (sections == null) {
+            return;
+        }
+
+        synchronized (sectionLock) {
+            SectionIndex index = sections;
+
+            if (index == null) {
+                return;
+            }
+
+            List<String> remaining = new ArrayList<>(index.keys());
+
+            remaining.removeAll(materialized);
+            materialize(index, remaining, key -> !materialized.contains(String.valueOf(key)));
+            materialized.clear();
+            sections = null;
+            republish();
+        }
+    }
+
+    /**
+     * Parses sections and merges them, with their defaults, into the node.
+     *
+     * @param index The section index.
+     * @param keys The sections to parse.
+     * @param wanted Tests whether a section should be merged into the node.
+     */
+    private void materialize(SectionIndex index, Collection<String> keys, Predicate<Object> wanted) {
+        CommentedConfigurationNode current = live();
+
+        if (current == null) {
+            return;
+        }
+
+        CommentedConfigurationNode parsed;
+
+        try {
+            parsed = index.parse(keys);
+        } catch (IOException e) {
+            log.error(MessageKeys.CONFIGURATION_SECTION_ERROR_NO_DEBUG, keys, uuid, e);
+            parsed = SimpleCommentedConfigurationNode.root();
+        }
 
-            logger.debug(internalMessages.getLog("configuration.load.success"), uuid);
+        // Freshly parsed sections are clean as they are in the file, not with their defaults
+        Map<Object, HashCode> onDisk = NodeFingerprint.of(parsed);
+
+        try {
+            mergeDefaults(parsed);
         } catch (IOException e) {
-            logger.error(internalMessages.getLog("configuration.load.error.debug"), e);
+            // The sections from the file are still merged, so saving does not drop them
+            log.error(MessageKeys.CONFIGURATION_SECTION_ERROR_NO_DEBUG, keys, uuid, e);
+        }
+
+        for (Object key : new ArrayList<>(parsed.getChildrenMap().keySet())) {
+            if (!wanted.test(key)) {
+                parsed.removeChild(key);
+            }
+        }
+
+        current.mergeValuesFrom(parsed);
+
+        Map<Object, HashCode> fingerprints = saved;
+
+        if (fingerprints != null) {
+            Map<Object, HashCode> updated = new HashMap<>(fingerprints);
+
+            for (Object key : parsed.getChildrenMap().keySet()) {
+                HashCode hash = onDisk.get(key);
+
+                if (hash == null) {
+                    updated.remove(key);
+                } else {
+                    updated.put(key, hash);
+                }
+            }
+
+            saved = ImmutableMap.copyOf(updated);
         }
     }
 
+    @Override
+    public boolean isDirty() {
+        CommentedConfigurationNode current = current();
+
+        if (current == null) {
+            return false;
+        }
+
+        Map<Object, HashCode> fingerprints = saved;
+        return fingerprints == null || !fingerprints.equals(NodeFingerprint.of(current));
+    }
+
     @Override
     public void save() {
+        if (writeBehind > 0) {
+            if (snapshot()) {
+                ConfigurationWriter.schedule(this, writeBehind);
+                log.debug(MessageKeys.CONFIGURATION_SAVE_QUEUED, uuid);
+            }
+
+            return;
+        }
+
+        materializeAll();
+
+        CommentedConfigurationNode current = current();
+
+        if (current == null) {
+            return;
+        }
+
+        Map<Object, HashCode> fingerprints = changes(current);
+
+        if (fingerprints == null) {
+            return;
+        }
+
         if (!(loader == null)) {
+            // Saves may run on any thread, so direct writes are serialized like write-behind writes
+            synchronized (writeLock) {
+                long start = System.nanoTime();
+
+                try {
+                    loader.save(current);
+                    saved = fingerprints;
+                    SAVES.recordSince(start);
+
+                    if (watching) {
+                        contentHash = hash();
+                    }
+
+                    log.debug(MessageKeys.CONFIGURATION_SAVE_SUCCESS, uuid);
+                } catch (IOException e) {
+                    saved = null;
+                    SAVE_ERRORS.increment();
+                    log.error(MessageKeys.CONFIGURATION_SAVE_ERROR_NO_DEBUG, uuid, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAsync() {
+        if (writeBehind == 0 && loader == null) {
+            save();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!snapshot()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> written;
+
+        if (writeBehind > 0) {
+            written = ConfigurationWriter.schedule(this, writeBehind);
+            log.debug(MessageKeys.CONFIGURATION_SAVE_QUEUED, uuid);
+        } else {
+            written = ConfigurationWriter.writeAsync(this);
+        }
+
+        return IoExecutor.onMainThread(written);
+    }
+
+    // Copies the node to save into the pending slot, or returns false if it is saved already
+    private boolean snapshot() {
+        // The node is only read on the calling thread, and the lock is never held while writing to disk
+        synchronized (saveLock) {
+            materializeAll();
+
+            CommentedConfigurationNode current = current();
+
+            if (current == null) {
+                return false;
+            }
+
+            Map<Object, HashCode> fingerprints = changes(current);
+
+            if (fingerprints == null) {
+                return false;
+            }
+
+            saved = fingerprints;
+            pending.set(copy(current));
+            return true;
+        }
+    }
+
+    // Gets the fingerprints of the node to save and publishes it, or null if it is saved already
+    @Nullable
+    private Map<Object, HashCode> changes(CommentedConfigurationNode current) {
+        Map<Object, HashCode> fingerprints = NodeFingerprint.of(current);
+
+        if (fingerprints.equals(saved)) {
+            SAVES_SKIPPED.increment();
+            log.debug(MessageKeys.CONFIGURATION_SAVE_CLEAN, uuid);
+            return null;
+        }
+
+        republish();
+        return fingerprints;
+    }
+
+    /**
+     * Writes the latest pending save, if there is one.
+     *
+     * <p>The node is written to a temporary file first which is then moved
+     *     over the configuration file, so a crash mid-write can not leave a
+     *     partially written configuration behind.
+     *
+     * @return {@code true} if a save was written, {@code false} if none was
+     *     pending.
+     * @throws IOException Thrown if the save could not be written, after it
+     *     was logged.
+     */
+    boolean writePending() throws IOException {
+        synchronized (writeLock) {
+            CommentedConfigurationNode snapshot = pending.getAndSet(null);
+
+            if (snapshot == null) {
+                return false;
+            }
+
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            long start = System.nanoTime();
+
             try {
-                loader.save(node);
-                logger.debug(internalMessages.getLog("configuration.save.success"), uuid);
+                HoconConfigurationLoader.builder().setPath(tmp).build().save(snapshot);
+
+                try {
+                    Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                if (watching) {
+                    contentHash = hash();
+                }
+
+                SAVES.recordSince(start);
+                log.debug(MessageKeys.CONFIGURATION_SAVE_SUCCESS, uuid);
+                return true;
             } catch (IOException e) {
-                logger.error(internalMessages.getLog("configuration.save.error.debug"), e);
+                // The file content is unknown now, so the next save must write
+                saved = null;
+                SAVE_ERRORS.increment();
+                log.error(MessageKeys.CONFIGURATION_SAVE_ERROR_NO_DEBUG, uuid, e);
+                throw e;
             }
         }
     }
 
+    /**
+     * Reloads the configuration if the content of its file changed since it
+     *     was last loaded or saved.
+     *
+     * <p>Called on the I/O executor once the {@link ConfigurationWatcher}
+     *     saw a change to the file settle.
+     */
+    void reloadIfChanged() {
+        synchronized (loadLock) {
+            try {
+                if (Objects.equals(contentHash, hash())) {
+                    log.debug(MessageKeys.CONFIGURATION_WATCH_UNCHANGED, uuid);
+                    return;
+                }
+
+                log.debug(MessageKeys.CONFIGURATION_WATCH_RELOAD, uuid);
+                load();
+            } catch (IOException | RuntimeException e) {
+                log.error(MessageKeys.CONFIGURATION_LOAD_ERROR_NO_DEBUG, uuid, e);
+            }
+        }
+    }
+
+    @Nullable
+    private HashCode hash() throws IOException {
+        return Files.exists(path) ? Hashing.murmur3_128().hashBytes(Files.readAllBytes(path)) : null;
+    }
+
     /**
      * The implementation for {@link io.github.pxlpowered.foundations.api.configuration.PersistentConfiguration.Builder}.
      */
@@ -106,6 +537,10 @@ public static final class BuilderImpl extends AbstractBuilder<PersistentConfigur
             implements PersistentConfiguration.Builder<PersistentConfiguration> {
 
         @Nullable private Path path;
+        private long writeBehind = 0L;
+        private long hotReload = 0L;
+        @Nullable private Path binaryCache;
+        private boolean lazySections = false;
 
         /**
          * Constructs a new instance of {@link BuilderImpl}.
@@ -121,7 +556,8 @@ public PersistentConfiguration build(Logger logger) {
             checkNotNull(logger, "logger");
             checkNotNull(path, path);
 
-            return new PersistentConfigurationImpl(internalMessages, urls, path, logger, UUID.randomUUID());
+            return ConfigurationRegistry.register(new PersistentConfigurationImpl(internalMessages, urls, parallelDefaults, bulkReload,
+                    path, writeBehind, hotReload, binaryCache, lazySections, logger, UUID.randomUUID()));
         }
 
         @Override
@@ -132,12 +568,48 @@ public PersistentConfiguration.Builder file(Path path) {
             return this;
         }
 
+        @Override
+        public PersistentConfiguration.Builder<PersistentConfiguration> writeBehind(long window, TimeUnit unit) {
+            checkArgument(window > 0, "window must be positive");
+            checkNotNull(unit, "unit");
+
+            writeBehind = unit.toNanos(window);
+            return this;
+        }
+
+        @Override
+        public PersistentConfiguration.Builder<PersistentConfiguration> hotReload(long debounce, TimeUnit unit) {
+            checkArgument(debounce > 0, "debounce must be positive");
+            checkNotNull(unit, "unit");
+
+            hotReload = unit.toNanos(debounce);
+            return this;
+        }
+
+        @Override
+        public PersistentConfiguration.Builder<PersistentConfiguration> binaryCache(Path cache) {
+            checkNotNull(cache, "cache");
+
+            binaryCache = cache;
+            return this;
+        }
+
+        @Override
+        public PersistentConfiguration.Builder<PersistentConfiguration> lazySections(boolean lazy) {
+            lazySections = lazy;
+            return this;
+        }
+
         @OverridingMethodsMustInvokeSuper
         @Override
         public Configuration.Builder<PersistentConfiguration> from(PersistentConfiguration value) {
             super.from(value);
 
             path = ((PersistentConfigurationImpl)value).path;
+            writeBehind = ((PersistentConfigurationImpl)value).writeBehind;
+            hotReload = ((PersistentConfigurationImpl)value).hotReload;
+            binaryCache = ((PersistentConfigurationImpl)value).binaryCache;
+            lazySections = ((PersistentConfigurationImpl)value).lazySections;
             return this;
         }
 
@@ -147,6 +619,10 @@ public Configuration.Builder<PersistentConfiguration> reset() {
             super.reset();
 
             path = null;
+            writeBehind = 0L;
+            hotReload = 0L;
+            binaryCache = null;
+            lazySections = false;
             return this;
         }
 
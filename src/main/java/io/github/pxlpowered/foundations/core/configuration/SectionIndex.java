@@ -0,0 +1,368 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An index of where each top level section of a HOCON file starts and ends.
+ *
+ * <p>The file is only scanned for section boundaries, so indexing is cheap
+ *     compared to parsing. Sections are read back from the file and parsed on
+ *     demand. No mapping or handle of the file is kept in between, so saving
+ *     can replace the file on every platform.
+ *
+ * <p>Files using includes or substitutions, or wrapping the root object in
+ *     braces, can not be split into sections and are not indexed.
+ */
+final class SectionIndex {
+
+    private final Path file;
+    private final long size;
+    private final FileTime modified;
+    private final Map<String, List<int[]>> ranges;
+
+    private SectionIndex(Path file, long size, FileTime modified, Map<String, List<int[]>> ranges) {
+        this.file = file;
+        this.size = size;
+        this.modified = modified;
+        this.ranges = ranges;
+    }
+
+    /**
+     * Reads and indexes a file.
+     *
+     * @param file The file.
+     * @return The index, {@link Optional#empty()} if the file can not be
+     *     split into sections.
+     * @throws IOException Thrown if the file could not be read.
+     */
+    static Optional<SectionIndex> map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+
+            FileTime modified = Files.getLastModifiedTime(file);
+            ByteBuffer buffer = read(channel, 0, (int) size);
+            Map<String, List<int[]>> ranges = scan(buffer);
+
+            return ranges == null ? Optional.empty() : Optional.of(new SectionIndex(file, size, modified, ranges));
+        }
+    }
+
+    /**
+     * Gets the keys of all sections in the file.
+     *
+     * @return The section keys.
+     */
+    Set<String> keys() {
+        return ranges.keySet();
+    }
+
+    /**
+     * Parses the given sections.
+     *
+     * <p>Sections which are not in the file are ignored.
+     *
+     * @param keys The section keys.
+     * @return A root node containing only the parsed sections.
+     * @throws IOException Thrown if the sections could not be read or
+     *     parsed, or if the file changed since it was indexed.
+     */
+    CommentedConfigurationNode parse(Collection<String> keys) throws IOException {
+        List<int[]> parts = new ArrayList<>();
+
+        for (String key : keys) {
+            List<int[]> keyRanges = ranges.get(key);
+
+            if (keyRanges != null) {
+                parts.addAll(keyRanges);
+            }
+        }
+
+        // Keep file order, so repeated keys override each other like they would in the file
+        parts.sort(Comparator.comparingInt(range -> range[0]));
+        StringBuilder text = new StringBuilder();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != size || !Files.getLastModifiedTime(file).equals(modified)) {
+                throw new IOException(file + " changed since its sections were indexed");
+            }
+
+            for (int[] range : parts) {
+                ByteBuffer buffer = read(channel, range[0], range[1] - range[0]);
+                text.append(decode(buffer, 0, buffer.limit())).append('\n');
+            }
+        }
+
+        return HoconConfigurationLoader.builder()
+                .setSource(() -> new BufferedReader(new StringReader(text.toString())))
+                .build()
+                .load();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Map<String, List<int[]>> scan(ByteBuffer buffer) {
+        Map<String, List<int[]>> ranges = new LinkedHashMap<>();
+        int limit = buffer.limit();
+        int start = 0;
+        int pos = skipBlank(buffer, 0);
+
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            String key;
+
+            if (b == '{' || b == '[') {
+                return null;
+            }
+
+            if (b == '"') {
+                if (isTripleQuote(buffer, pos)) {
+                    return null;
+                }
+
+                int end = endOfQuoted(buffer, pos);
+
+                if (end < 0) {
+                    return null;
+                }
+
+                key = decode(buffer, pos + 1, end - 1);
+
+                if (key.indexOf('\\') >= 0) {
+                    return null;
+                }
+
+                pos = end;
+            } else {
+                int end = pos;
+
+                while (end < limit && !isKeyEnd(buffer.get(end))) {
+                    end++;
+                }
+
+                key = decode(buffer, pos, end);
+                pos = end;
+
+                // Unquoted keys may contain whitespace, only accept them if a separator follows
+                while (pos < limit && (buffer.get(pos) == ' ' || buffer.get(pos) == '\t')) {
+                    pos++;
+                }
+
+                if (pos < limit && !isSeparator(buffer.get(pos))) {
+                    return null;
+                }
+            }
+
+            if (key.isEmpty() || "include".equals(key)) {
+                return null;
+            }
+
+            pos = endOfStatement(buffer, pos);
+
+            if (pos < 0) {
+                return null;
+            }
+
+            ranges.computeIfAbsent(key, k -> new ArrayList<>()).add(new int[] {start, pos});
+            start = pos;
+            pos = skipBlank(buffer, pos);
+        }
+
+        return ranges;
+    }
+
+    private static int endOfStatement(ByteBuffer buffer, int pos) {
+        int limit = buffer.limit();
+        int depth = 0;
+        boolean separated = false;
+        boolean value = false;
+
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+
+            if (b == '"') {
+                pos = isTripleQuote(buffer, pos) ? endOfTripleQuoted(buffer, pos) : endOfQuoted(buffer, pos);
+
+                if (pos < 0) {
+                    return -1;
+                }
+
+                value |= separated || depth > 0;
+                continue;
+            }
+
+            if (isCommentStart(buffer, pos)) {
+                pos = endOfLine(buffer, pos);
+                continue;
+            }
+
+            if (b == '$' && pos + 1 < limit && buffer.get(pos + 1) == '{') {
+                return -1;
+            }
+
+            if (b == '{' || b == '[') {
+                depth++;
+                value = true;
+            } else if (b == '}' || b == ']') {
+                if (--depth < 0) {
+                    return -1;
+                }
+            } else if ((b == '\n' || b == ',') && depth == 0 && value) {
+                return pos + 1;
+            } else if (b == ':' || b == '=') {
+                separated = true;
+            } else if (separated && !Character.isWhitespace(b)) {
+                value = true;
+            }
+
+            pos++;
+        }
+
+        return depth == 0 ? limit : -1;
+    }
+
+    private static int skipBlank(ByteBuffer buffer, int pos) {
+        int limit = buffer.limit();
+
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+
+            if (isCommentStart(buffer, pos)) {
+                pos = endOfLine(buffer, pos);
+            } else if (Character.isWhitespace(b) || b == ',') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+
+        return pos;
+    }
+
+    private static boolean isKeyEnd(byte b) {
+        return isSeparator(b) || b == '.' || b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '#' || b == '/';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ':' || b == '=' || b == '{' || b == '+' || b == '.';
+    }
+
+    private static boolean isCommentStart(ByteBuffer buffer, int pos) {
+        byte b = buffer.get(pos);
+        return b == '#' || (b == '/' && pos + 1 < buffer.limit() && buffer.get(pos + 1) == '/');
+    }
+
+    private static boolean isTripleQuote(ByteBuffer buffer, int pos) {
+        return pos + 2 < buffer.limit() && buffer.get(pos + 1) == '"' && buffer.get(pos + 2) == '"';
+    }
+
+    private static int endOfLine(ByteBuffer buffer, int pos) {
+        while (pos < buffer.limit() && buffer.get(pos) != '\n') {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    private static int endOfQuoted(ByteBuffer buffer, int pos) {
+        for (int i = pos + 1; i < buffer.limit(); i++) {
+            byte b = buffer.get(i);
+
+            if (b == '\\') {
+                i++;
+            } else if (b == '"') {
+                return i + 1;
+            } else if (b == '\n') {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int endOfTripleQuoted(ByteBuffer buffer, int pos) {
+        for (int i = pos + 3; i + 2 < buffer.limit(); i++) {
+            if (buffer.get(i) == '"' && buffer.get(i + 1) == '"' && buffer.get(i + 2) == '"') {
+                int end = i + 3;
+
+                // Quotes directly before the closing quotes are part of the string
+                while (end < buffer.limit() && buffer.get(end) == '"') {
+                    end++;
+                }
+
+                return end;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -29,11 +29,12 @@
 
 import io.github.pxlpowered.foundations.api.configuration.TransientConfiguration;
 import io.github.pxlpowered.foundations.core.message.internal.InternalMessages;
+import io.github.pxlpowered.foundations.core.message.internal.MessageKeys;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
-import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import org.slf4j.Logger;
 
-import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
 import java.util.Set;
 import java.util.UUID;
@@ -43,24 +44,28 @@
  */
 public final class TransientConfigurationImpl extends AbstractConfiguration implements TransientConfiguration {
 
-    private TransientConfigurationImpl(InternalMessages internalMessages, Set<URL> urls, Logger logger, UUID uuid) {
-        super(internalMessages, urls, logger, uuid);
+    private TransientConfigurationImpl(InternalMessages internalMessages, Set<URL> urls, boolean parallelDefaults, boolean bulkReload,
+            Logger logger, UUID uuid) {
+        super(internalMessages, urls, parallelDefaults, bulkReload, logger, uuid);
     }
 
     @Override
     public void load() {
-        logger.debug(internalMessages.getLog("configuration.load.attempt"), uuid);
-        node = SimpleCommentedConfigurationNode.root();
+        long start = System.nanoTime();
 
-        urls.forEach(url -> {
-            try {
-                node.mergeValuesFrom(HoconConfigurationLoader.builder().setURL(url).build().load());
-            } catch (IOException e) {
-                logger.error(internalMessages.getStringFormatted("configuration.asset.load.error.debug", url, uuid), e);
-            }
-        });
+        log.debug(MessageKeys.CONFIGURATION_LOAD_ATTEMPT, uuid);
+        CommentedConfigurationNode loaded = SimpleCommentedConfigurationNode.root();
 
-        logger.debug(internalMessages.getLog("configuration.load.success"), uuid);
+        try {
+            mergeDefaults(loaded);
+            publish(loaded);
+            log.debug(MessageKeys.CONFIGURATION_LOAD_SUCCESS, uuid);
+        } catch (InterruptedIOException e) {
+            LOAD_ERRORS.increment();
+            log.error(MessageKeys.CONFIGURATION_LOAD_ERROR_NO_DEBUG, uuid, e);
+        } finally {
+            LOADS.recordSince(start);
+        }
     }
 
     /**
@@ -81,7 +86,8 @@ public BuilderImpl(InternalMessages internalMessages) {
         public TransientConfigurationImpl build(Logger logger) {
             checkNotNull(logger, "logger");
 
-            return new TransientConfigurationImpl(internalMessages, urls, logger, UUID.randomUUID());
+            return ConfigurationRegistry.register(new TransientConfigurationImpl(internalMessages, urls, parallelDefaults, bulkReload,
+                    logger, UUID.randomUUID()));
         }
 
     }
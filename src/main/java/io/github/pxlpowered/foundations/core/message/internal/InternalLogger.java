@@ -0,0 +1,192 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.slf4j.Logger;
+
+/**
+ * Logs {@link InternalMessages} through a {@link Logger}.
+ *
+ * <p>The level is checked before the message is looked up, so a filtered
+ *     message costs neither a lookup nor a format. The debug and info
+ *     levels have overloads for up to two arguments, so filtered messages on
+ *     hot paths don't allocate an argument array either. Arguments are
+ *     passed to the logger as parameters, and a trailing {@link Throwable}
+ *     is logged with its stack trace.
+ *
+ * <p>Messages are logged by their {@link MessageKey} from
+ *     {@code MessageKeys}, so a mistyped key fails to compile. Errors are
+ *     logged from the {@code .no-debug} entry of their key, which holds the
+ *     parameterized form of the message.
+ */
+public final class InternalLogger {
+
+    private final Logger logger;
+    private final InternalMessages internalMessages;
+
+    /**
+     * Constructs a new instance of {@link InternalLogger}.
+     *
+     * @param logger The logger.
+     * @param internalMessages The internal messages instance.
+     */
+    public InternalLogger(Logger logger, InternalMessages internalMessages) {
+        this.logger = checkNotNull(logger, "logger");
+        this.internalMessages = checkNotNull(internalMessages, "internalMessages");
+    }
+
+    /**
+     * Logs a message at the debug level.
+     *
+     * @param key The key for the message.
+     */
+    public void debug(MessageKey key) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(internalMessages.getLog(key));
+        }
+    }
+
+    /**
+     * Logs a message with one argument at the debug level.
+     *
+     * @param key The key for the message.
+     * @param arg The argument for the message.
+     */
+    public void debug(MessageKey key, Object arg) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(internalMessages.getLog(key), arg);
+        }
+    }
+
+    /**
+     * Logs a message with two arguments at the debug level.
+     *
+     * @param key The key for the message.
+     * @param arg1 The first argument for the message.
+     * @param arg2 The second argument for the message.
+     */
+    public void debug(MessageKey key, Object arg1, Object arg2) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(internalMessages.getLog(key), arg1, arg2);
+        }
+    }
+
+    /**
+     * Logs a message at the debug level.
+     *
+     * @param key The key for the message.
+     * @param args The arguments for the message.
+     */
+    public void debug(MessageKey key, Object... args) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(internalMessages.getLog(key), args);
+        }
+    }
+
+    /**
+     * Logs a message at the info level.
+     *
+     * @param key The key for the message.
+     */
+    public void info(MessageKey key) {
+        if (logger.isInfoEnabled()) {
+            logger.info(internalMessages.getLog(key));
+        }
+    }
+
+    /**
+     * Logs a message with one argument at the info level.
+     *
+     * @param key The key for the message.
+     * @param arg The argument for the message.
+     */
+    public void info(MessageKey key, Object arg) {
+        if (logger.isInfoEnabled()) {
+            logger.info(internalMessages.getLog(key), arg);
+        }
+    }
+
+    /**
+     * Logs a message with two arguments at the info level.
+     *
+     * @param key The key for the message.
+     * @param arg1 The first argument for the message.
+     * @param arg2 The second argument for the message.
+     */
+    public void info(MessageKey key, Object arg1, Object arg2) {
+        if (logger.isInfoEnabled()) {
+            logger.info(internalMessages.getLog(key), arg1, arg2);
+        }
+    }
+
+    /**
+     * Logs a message at the info level.
+     *
+     * @param key The key for the message.
+     * @param args The arguments for the message.
+     */
+    public void info(MessageKey key, Object... args) {
+        if (logger.isInfoEnabled()) {
+            logger.info(internalMessages.getLog(key), args);
+        }
+    }
+
+    /**
+     * Logs a message at the warn level.
+     *
+     * @param key The key for the message.
+     * @param args The arguments for the message.
+     */
+    public void warn(MessageKey key, Object... args) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(internalMessages.getLog(key), args);
+        }
+    }
+
+    /**
+     * Logs a message at the error level.
+     *
+     * @param key The {@code .no-debug} key for the message.
+     * @param args The arguments for the message.
+     */
+    public void error(MessageKey key, Object... args) {
+        if (logger.isErrorEnabled()) {
+            logger.error(internalMessages.getLog(key), args);
+        }
+    }
+
+    /**
+     * Gets the underlying logger.
+     *
+     * @return The logger.
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+}
@@ -27,39 +27,44 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.google.common.reflect.TypeToken;
-import ninja.leaping.configurate.ConfigurationNode;
-import ninja.leaping.configurate.SimpleConfigurationNode;
-import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
-import ninja.leaping.configurate.objectmapping.ObjectMappingException;
-import org.spongepowered.api.asset.Asset;
+import io.github.pxlpowered.foundations.core.concurrent.IoExecutor;
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.TextElement;
 import org.spongepowered.api.text.TextTemplate;
+import org.spongepowered.api.text.channel.MessageReceiver;
 import org.spongepowered.api.text.format.TextColors;
 import org.spongepowered.api.text.format.TextStyles;
-import org.spongepowered.api.text.serializer.TextParseException;
-import org.spongepowered.api.text.serializer.TextSerializers;
 
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.Formatter;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
 
 /**
  * Represents the plugin's internal messages.
  *
- * <p>Internal messages are for developers' understanding, and as such are
- * only provided in {@link Locale#US} for simplicity.
+ * <p>Internal messages are for developers' understanding, and as such the
+ * default bundle is provided in {@link Locale#US}. Locale specific bundles
+ * named {@code internal-messages_<locale>.properties} may override any of
+ * its keys, see {@link #getLocalized(Locale)}.
  */
 public final class InternalMessages {
 
     private static final String KEY_MISSING = "The key %s is missing";
     private static final String MALFORMED_TEXT = "The text for key %s is malformed";
 
-    private final ConfigurationNode node = SimpleConfigurationNode.root();
+    private final AtomicReference<MessageBundles> bundles;
+    private final MessageMetrics metrics;
+    @Nullable private final Locale locale;
 
     /**
      * Constructs a new InternalMessages instance for plugin messages.
@@ -68,15 +73,117 @@ public final class InternalMessages {
      * @throws Exception Thrown if the asset was not found or was not able to be loaded.
      */
     public InternalMessages(PluginContainer plugin) throws Exception {
+        this(plugin, null);
+    }
+
+    /**
+     * Constructs a new InternalMessages instance for plugin messages which
+     *     can be overridden.
+     *
+     * <p>Files in the overrides directory named like a bundle, for example
+     *     {@code internal-messages.properties} or
+     *     {@code internal-messages_de.properties}, override the messages of
+     *     that bundle. They are read again on every {@link #reload()}.
+     *
+     * @param plugin The plugin instance.
+     * @param overrides The directory of override files, or {@code null} for
+     *     none.
+     * @throws Exception Thrown if the asset was not found or was not able to be loaded.
+     */
+    public InternalMessages(PluginContainer plugin, @Nullable Path overrides) throws Exception {
         checkNotNull(plugin);
 
-        Optional<Asset> assetOptional = plugin.getAsset("internal-messages.properties");
+        this.bundles = new AtomicReference<>(new MessageBundles(plugin, overrides));
+        this.metrics = new MessageMetrics();
+        this.locale = null;
+    }
 
-        if (assetOptional.isPresent()) {
-            node.mergeValuesFrom(HoconConfigurationLoader.builder().setURL(assetOptional.get().getUrl()).build().load());
-        } else {
-            throw new RuntimeException("Internal Messages asset assets/foundations/messages/internal.properties is missing.");
-        }
+    private InternalMessages(AtomicReference<MessageBundles> bundles, MessageMetrics metrics, Locale locale) {
+        this.bundles = bundles;
+        this.metrics = metrics;
+        this.locale = locale;
+    }
+
+    /**
+     * Gets the messages for a {@link Locale}.
+     *
+     * <p>Keys missing from the locale's bundle fall back to the less specific
+     * bundles of the locale, and then to the default bundle.
+     *
+     * @param locale The locale.
+     * @return The localized messages.
+     */
+    public InternalMessages getLocalized(Locale locale) {
+        checkNotNull(locale, "locale");
+
+        return new InternalMessages(bundles, metrics, locale);
+    }
+
+    /**
+     * Gets the {@link Locale} of these messages.
+     *
+     * @return The locale, or {@link Optional#empty()} for the default bundle.
+     */
+    public Optional<Locale> getLocale() {
+        return Optional.ofNullable(locale);
+    }
+
+    /**
+     * Gets the usage metrics of these messages.
+     *
+     * <p>The metrics are shared by all localized views and survive reloads.
+     *
+     * @return The metrics.
+     */
+    public MessageMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the number of messages in the catalog of these messages.
+     *
+     * @return The number of messages.
+     */
+    public int getCatalogSize() {
+        return getCatalog().size();
+    }
+
+    /**
+     * Estimates the heap used by the keys, values and index of the catalog
+     * of these messages, excluding the caches of formats and texts.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long getCatalogFootprint() {
+        return getCatalog().getEstimatedSize();
+    }
+
+    /**
+     * Reloads the messages.
+     *
+     * <p>The bundles and their override files are parsed and their caches are
+     * built on the {@link IoExecutor}. They are then swapped in at once, for
+     * these messages and every localized view of them. Readers never block
+     * and see either the old or the new bundles, never a mix of both. If
+     * loading fails, the old bundles stay in use. Concurrent reloads run one
+     * after the other, so the last reload always publishes the newest
+     * bundles.
+     *
+     * @return A future completed on the server thread once the new bundles
+     *     are in use.
+     */
+    public CompletableFuture<Void> reload() {
+        return IoExecutor.run(() -> {
+            // Localized views share the reference, so reloads through any of them are serialized
+            synchronized (bundles) {
+                bundles.set(bundles.get().reload());
+            }
+        });
+    }
+
+    private MessageCatalog getCatalog() {
+        MessageBundles current = bundles.get();
+        return locale == null ? current.getDefault() : current.getCatalog(locale);
     }
 
     /**
@@ -87,14 +194,36 @@ public InternalMessages(PluginContainer plugin) throws Exception {
      */
     public String getLog(String key) {
         checkNotNull(key, "key");
+        metrics.lookup(key, MessageMetrics.Method.LOG);
+
+        String value = getCatalog().getString(key);
+
+        if (value == null) {
+            metrics.miss(key);
+            return String.format(KEY_MISSING, key);
+        }
+
+        return value;
+    }
+
+    /**
+     * Gets a string value for logging purposes.
+     *
+     * @param key The key for the value.
+     * @return The log message.
+     */
+    public String getLog(MessageKey key) {
+        checkNotNull(key, "key");
+        metrics.lookup(key.getKey(), MessageMetrics.Method.LOG);
 
-        ConfigurationNode tmp = node.getNode((Object[]) key.split("\\."));
+        String value = getCatalog().getString(key);
 
-        if (tmp.isVirtual()) {
+        if (value == null) {
+            metrics.miss(key.getKey());
             return String.format(KEY_MISSING, key);
         }
 
-        return tmp.getString();
+        return value;
     }
 
     /**
@@ -105,14 +234,36 @@ public String getLog(String key) {
      */
     public String getPlain(String key) {
         checkNotNull(key, "key");
+        metrics.lookup(key, MessageMetrics.Method.PLAIN);
 
-        ConfigurationNode tmp = node.getNode((Object[]) key.split("\\."));
+        String value = getCatalog().getString(key);
 
-        if (tmp.isVirtual()) {
+        if (value == null) {
+            metrics.miss(key);
             return String.format(KEY_MISSING, key);
         }
 
-        return tmp.getString();
+        return value;
+    }
+
+    /**
+     * Gets a string value.
+     *
+     * @param key The key for the value.
+     * @return The string message.
+     */
+    public String getPlain(MessageKey key) {
+        checkNotNull(key, "key");
+        metrics.lookup(key.getKey(), MessageMetrics.Method.PLAIN);
+
+        String value = getCatalog().getString(key);
+
+        if (value == null) {
+            metrics.miss(key.getKey());
+            return String.format(KEY_MISSING, key);
+        }
+
+        return value;
     }
 
     /**
@@ -127,14 +278,40 @@ public String getPlain(String key) {
     public String getStringFormatted(String key, Object... args) {
         checkNotNull(key, "key");
         checkNotNull(args, "args");
+        metrics.lookup(key, MessageMetrics.Method.STRING_FORMATTED);
+
+        StringFormat format = getCatalog().getStringFormat(key);
+
+        if (format == null) {
+            metrics.miss(key);
+            return String.format(KEY_MISSING, key);
+        }
+
+        return format.format(args);
+    }
+
+    /**
+     * Gets a formatted string value.
+     *
+     * <p>Uses the {@link Formatter} for formatting, {@code String.format(String,Object[])}.
+     *
+     * @param key The key for the value.
+     * @param args The args for formatting.
+     * @return The string message.
+     */
+    public String getStringFormatted(MessageKey key, Object... args) {
+        checkNotNull(key, "key");
+        checkNotNull(args, "args");
+        metrics.lookup(key.getKey(), MessageMetrics.Method.STRING_FORMATTED);
 
-        ConfigurationNode tmp = node.getNode((Object[]) key.split("\\."));
+        StringFormat format = getCatalog().getStringFormat(key);
 
-        if (tmp.isVirtual()) {
+        if (format == null) {
+            metrics.miss(key.getKey());
             return String.format(KEY_MISSING, key);
         }
 
-        return String.format(tmp.getString(), args);
+        return format.format(args);
     }
 
     /**
@@ -149,14 +326,16 @@ public String getStringFormatted(String key, Object... args) {
     public String getTextFormatted(String key, Object... args) {
         checkNotNull(key, "key");
         checkNotNull(args, "args");
+        metrics.lookup(key, MessageMetrics.Method.TEXT_FORMATTED);
 
-        ConfigurationNode tmp = node.getNode((Object[]) key.split("\\."));
+        MessageFormat format = getCatalog().getMessageFormat(key);
 
-        if (tmp.isVirtual()) {
+        if (format == null) {
+            metrics.miss(key);
             return String.format(KEY_MISSING, key);
         }
 
-        return MessageFormat.format(tmp.getString(), args);
+        return format.format(args);
     }
 
     /**
@@ -167,18 +346,26 @@ public String getTextFormatted(String key, Object... args) {
      */
     public Text getJsonText(String key) {
         checkNotNull(key, "key");
+        metrics.lookup(key, MessageMetrics.Method.JSON_TEXT);
 
-        ConfigurationNode tmp = node.getNode((Object[]) key.split("\\."));
-
-        if (tmp.isVirtual()) {
-            //noinspection MalformedFormatString
-            return Text.of(TextColors.RED, TextStyles.BOLD, String.format(KEY_MISSING, key));
-        }
+        long start = metrics.startRender();
 
         try {
-            return tmp.getValue(TypeToken.of(Text.class));
-        } catch (ObjectMappingException e) {
+            Text text = getCatalog().getJsonText(key);
+
+            if (text != null) {
+                return text;
+            }
+
+            if (!getCatalog().contains(key)) {
+                metrics.miss(key);
+                //noinspection MalformedFormatString
+                return Text.of(TextColors.RED, TextStyles.BOLD, String.format(KEY_MISSING, key));
+            }
+
             return Text.of(TextColors.RED, TextStyles.BOLD, String.format(MALFORMED_TEXT, key));
+        } finally {
+            metrics.endRender(start);
         }
     }
 
@@ -190,18 +377,26 @@ public Text getJsonText(String key) {
      */
     public Text getFormatCodeText(String key) {
         checkNotNull(key, "key");
+        metrics.lookup(key, MessageMetrics.Method.FORMAT_CODE_TEXT);
 
-        ConfigurationNode tmp = node.getNode((Object[]) key.split("\\."));
-
-        if (tmp.isVirtual()) {
-            //noinspection MalformedFormatString
-            return Text.of(TextColors.RED, TextStyles.BOLD, String.format(KEY_MISSING, key));
-        }
+        long start = metrics.startRender();
 
         try {
-            return TextSerializers.FORMATTING_CODE.deserialize(tmp.getString());
-        } catch (TextParseException e) {
+            Text text = getCatalog().getFormatCodeText(key);
+
+            if (text != null) {
+                return text;
+            }
+
+            if (!getCatalog().contains(key)) {
+                metrics.miss(key);
+                //noinspection MalformedFormatString
+                return Text.of(TextColors.RED, TextStyles.BOLD, String.format(KEY_MISSING, key));
+            }
+
             return Text.of(TextColors.RED, TextStyles.BOLD, String.format(MALFORMED_TEXT, key));
+        } finally {
+            metrics.endRender(start);
         }
     }
 
@@ -215,22 +410,62 @@ public Text getFormatCodeText(String key) {
     public Text getTemplateText(String key, Map<String, TextElement> arguments) {
         checkNotNull(key, "key");
         checkNotNull(arguments, "arguments");
+        metrics.lookup(key, MessageMetrics.Method.TEMPLATE_TEXT);
 
-        ConfigurationNode tmp = node.getNode((Object[]) key.split("\\."));
+        long start = metrics.startRender();
 
-        if (tmp.isVirtual()) {
-            return Text.of(TextColors.RED, TextStyles.BOLD, String.format(KEY_MISSING, key));
-        }
+        try {
+            TextTemplate template = getCatalog().getTemplate(key);
 
-        TextTemplate template;
+            if (template != null) {
+                return template.apply(arguments).build();
+            }
+
+            if (!getCatalog().contains(key)) {
+                metrics.miss(key);
+                return Text.of(TextColors.RED, TextStyles.BOLD, String.format(KEY_MISSING, key));
+            }
 
-        try {
-            template = tmp.getValue(TypeToken.of(TextTemplate.class));
-        } catch (ObjectMappingException e) {
             return Text.of(TextColors.RED, TextStyles.BOLD, String.format("The text template for key %s is malformed", key));
+        } finally {
+            metrics.endRender(start);
+        }
+    }
+
+    /**
+     * Sends a text template to many recipients.
+     *
+     * <p>The template is rendered once for every distinct set of arguments,
+     * and recipients with equal arguments receive the same {@link Text}
+     * instance.
+     *
+     * @param key The key for the value.
+     * @param recipients The recipients.
+     * @param arguments The function giving the arguments for a recipient.
+     * @param <R> The type of the recipients.
+     * @return The number of distinct texts that were rendered.
+     */
+    public <R extends MessageReceiver> int broadcastTemplateText(String key, Iterable<R> recipients,
+            Function<? super R, Map<String, TextElement>> arguments) {
+        checkNotNull(key, "key");
+        checkNotNull(recipients, "recipients");
+        checkNotNull(arguments, "arguments");
+
+        Map<Map<String, TextElement>, Text> rendered = new HashMap<>();
+
+        for (R recipient : recipients) {
+            Map<String, TextElement> args = checkNotNull(arguments.apply(recipient), "arguments");
+            Text text = rendered.get(args);
+
+            if (text == null) {
+                text = getTemplateText(key, args);
+                rendered.put(args, text);
+            }
+
+            recipient.sendMessage(text);
         }
 
-        return template.apply(arguments).build();
+        return rendered.size();
     }
 
 }
@@ -0,0 +1,308 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+import org.spongepowered.api.asset.Asset;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.ResourceBundle;
+
+import javax.annotation.Nullable;
+
+/**
+ * The message bundles of a plugin, one per {@link Locale}.
+ *
+ * <p>A locale resolves through its fallback chain, for example
+ *     {@code de_AT} to {@code de} and then to the default bundle. The fully
+ *     resolved catalog of each locale is built once and cached, and rarely
+ *     used locales are evicted first. A locale without any bundle of its own
+ *     shares the default catalog. All catalogs of the bundles share one pool
+ *     of deduplicated strings.
+ *
+ * <p>The default bundle is read from the catalog compiled at build time when
+ *     it is present, which skips parsing HOCON and lays out the values by
+ *     {@link MessageKey} slot. Only the few values that are not strings are
+ *     stored as json and parsed back into nodes.
+ *
+ * <p>Every bundle can be overridden by a file with the same name in the
+ *     overrides directory. Keys in an override file take precedence over the
+ *     bundle shipped with the plugin, and missing keys fall back to it, so an
+ *     override file only needs the messages it changes. A localized bundle
+ *     or override file which can not be loaded is logged once, when its
+ *     locale is resolved, and skipped.
+ */
+final class MessageBundles {
+
+    private static final String BASE_NAME = "internal-messages";
+    private static final String EXTENSION = ".properties";
+    private static final String COMPILED_EXTENSION = ".bin";
+    private static final int COMPILED_MAGIC = 0x464D4347;
+    private static final int COMPILED_VERSION = 2;
+    private static final byte COMPILED_STRING = 0;
+    private static final byte COMPILED_JSON = 1;
+    private static final long MAXIMUM_LOCALES = 32;
+    private static final ResourceBundle.Control CONTROL = ResourceBundle.Control.getControl(ResourceBundle.Control.FORMAT_DEFAULT);
+
+    private final PluginContainer plugin;
+    @Nullable private final Path overrides;
+    private final Interner<String> strings = Interners.newStrongInterner();
+    @Nullable private final String[] slots;
+    private final MessageCatalog defaultCatalog;
+    private final LoadingCache<Locale, MessageCatalog> catalogs = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_LOCALES)
+            .build(new CacheLoader<Locale, MessageCatalog>() {
+
+                @Override
+                public MessageCatalog load(Locale locale) {
+                    return resolve(locale);
+                }
+
+            });
+
+    /**
+     * Constructs a new instance of {@link MessageBundles}.
+     *
+     * @param plugin The plugin owning the bundles.
+     * @param overrides The directory of override files, or {@code null} if
+     *     the bundles can not be overridden.
+     * @throws Exception Thrown if the default bundle was not found or was not
+     *     able to be loaded.
+     */
+    MessageBundles(PluginContainer plugin, @Nullable Path overrides) throws Exception {
+        this.plugin = plugin;
+        this.overrides = overrides;
+
+        Optional<Asset> compiled = plugin.getAsset(BASE_NAME + COMPILED_EXTENSION);
+        Optional<ConfigurationNode> override = loadOverride(BASE_NAME + EXTENSION);
+
+        MessageCatalog.Builder builder = MessageCatalog.builder(strings);
+
+        if (override.isPresent()) {
+            builder.add(override.get());
+        }
+
+        if (compiled.isPresent()) {
+            this.slots = readCompiled(compiled.get().getUrl(), builder);
+        } else {
+            Optional<ConfigurationNode> root = load(BASE_NAME + EXTENSION);
+
+            if (!root.isPresent()) {
+                throw new RuntimeException("Internal Messages asset assets/foundations/internal-messages.properties is missing.");
+            }
+
+            builder.add(root.get());
+            this.slots = null;
+        }
+
+        this.defaultCatalog = builder.build(slots);
+    }
+
+    /**
+     * Gets the default catalog.
+     *
+     * @return The default catalog.
+     */
+    MessageCatalog getDefault() {
+        return defaultCatalog;
+    }
+
+    /**
+     * Gets the resolved catalog for a locale.
+     *
+     * @param locale The locale.
+     * @return The catalog.
+     */
+    MessageCatalog getCatalog(Locale locale) {
+        return catalogs.getUnchecked(locale);
+    }
+
+    /**
+     * Loads a fresh copy of these bundles.
+     *
+     * <p>The override files are read again, so edited messages are picked
+     *     up. The new bundles resolve the same locales and build the same
+     *     derived values as these bundles before they are returned, so they
+     *     can be swapped in without a cold start.
+     *
+     * @return The reloaded bundles.
+     * @throws Exception Thrown if the default bundle was not found or was not
+     *     able to be loaded.
+     */
+    MessageBundles reload() throws Exception {
+        MessageBundles bundles = new MessageBundles(plugin, overrides);
+        bundles.defaultCatalog.warm(defaultCatalog);
+        catalogs.asMap().forEach((locale, catalog) -> bundles.getCatalog(locale).warm(catalog));
+
+        return bundles;
+    }
+
+    private MessageCatalog resolve(Locale locale) {
+        MessageCatalog.Builder builder = MessageCatalog.builder(strings);
+        boolean localized = false;
+
+        // Candidates are ordered from the most specific locale to the root locale
+        List<Locale> candidates = CONTROL.getCandidateLocales(BASE_NAME, locale);
+
+        for (Locale candidate : candidates) {
+            if (candidate.equals(Locale.ROOT)) {
+                continue;
+            }
+
+            String name = CONTROL.toBundleName(BASE_NAME, candidate) + EXTENSION;
+
+            try {
+                Optional<ConfigurationNode> override = loadOverride(name);
+
+                if (override.isPresent()) {
+                    builder.add(override.get());
+                    localized = true;
+                }
+            } catch (IOException e) {
+                // A broken override falls back to the bundle shipped with the plugin
+                warn(MessageKeys.INTERNALMESSAGES_OVERRIDE_ERROR, name, locale, e);
+            }
+
+            try {
+                Optional<ConfigurationNode> bundle = load(name);
+
+                if (bundle.isPresent()) {
+                    builder.add(bundle.get());
+                    localized = true;
+                }
+            } catch (IOException e) {
+                // A broken bundle falls back to the next one in the chain
+                warn(MessageKeys.INTERNALMESSAGES_BUNDLE_ERROR, name, locale, e);
+            }
+        }
+
+        if (!localized) {
+            return defaultCatalog;
+        }
+
+        return builder.add(defaultCatalog).build(slots);
+    }
+
+    private void warn(MessageKey key, String name, Locale locale, IOException e) {
+        String message = defaultCatalog.getString(key);
+        plugin.getLogger().warn(message == null ? key.getKey() : message, name, locale, e);
+    }
+
+    /**
+     * Reads the catalog compiled at build time.
+     *
+     * <p>The compiled catalog holds the value of every key of the default
+     *     bundle, ordered by slot. Strings are stored as they are, lists,
+     *     numbers and booleans as json.
+     *
+     * @param url The compiled catalog.
+     * @param builder The builder to add the keys to.
+     * @return The keys by slot.
+     * @throws IOException Thrown if the compiled catalog could not be read.
+     */
+    private static String[] readCompiled(URL url, MessageCatalog.Builder builder) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(url.openStream()))) {
+            if (in.readInt() != COMPILED_MAGIC || in.readInt() != COMPILED_VERSION) {
+                throw new IOException("Compiled internal messages " + url + " have an unknown format");
+            }
+
+            String[] keys = new String[in.readInt()];
+
+            for (int i = 0; i < keys.length; i++) {
+                // Interned like the string constants of the generated keys, which makes verifying a slot cheap
+                keys[i] = in.readUTF().intern();
+                byte type = in.readByte();
+                String value = in.readUTF();
+
+                // Parent keys are not compiled, they are added for every value
+                for (int dot = keys[i].indexOf('.'); dot != -1; dot = keys[i].indexOf('.', dot + 1)) {
+                    builder.add(keys[i].substring(0, dot), (String) null);
+                }
+
+                if (type == COMPILED_STRING) {
+                    builder.add(keys[i], value);
+                } else if (type == COMPILED_JSON) {
+                    builder.add(keys[i], parseJson(value));
+                } else {
+                    throw new IOException("Compiled internal messages " + url + " have an unknown value type " + type);
+                }
+            }
+
+            return keys;
+        }
+    }
+
+    private static ConfigurationNode parseJson(String json) throws IOException {
+        // Json is valid HOCON, wrapping it in a key also accepts a bare list or scalar
+        return HoconConfigurationLoader.builder()
+                .setSource(() -> new BufferedReader(new StringReader("value = " + json)))
+                .build()
+                .load()
+                .getNode("value");
+    }
+
+    private Optional<ConfigurationNode> load(String name) throws IOException {
+        Optional<Asset> asset = plugin.getAsset(name);
+
+        if (!asset.isPresent()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(HoconConfigurationLoader.builder().setURL(asset.get().getUrl()).build().load());
+    }
+
+    private Optional<ConfigurationNode> loadOverride(String name) throws IOException {
+        if (overrides == null) {
+            return Optional.empty();
+        }
+
+        Path file = overrides.resolve(name);
+
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(HoconConfigurationLoader.builder().setPath(file).build().load());
+    }
+
+}
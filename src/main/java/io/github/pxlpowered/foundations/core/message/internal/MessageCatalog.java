@@ -0,0 +1,616 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import com.google.common.collect.Interner;
+import com.google.common.reflect.TypeToken;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.SimpleConfigurationNode;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.TextTemplate;
+import org.spongepowered.api.text.serializer.TextParseException;
+import org.spongepowered.api.text.serializer.TextSerializers;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * A flattened, immutable view of a message catalog.
+ *
+ * <p>The node tree is walked once when the catalog is built and every key is
+ *     stored with its full dotted name, so lookups are a single hash index
+ *     access without splitting the key or walking the tree. Keys and values
+ *     are kept in packed arrays of deduplicated strings instead of nodes, so
+ *     the heap used by a catalog grows with its distinct strings. Lists,
+ *     numbers and booleans also keep their original value, so the nodes of
+ *     json texts and templates are rebuilt with their real structure.
+ *
+ * <p>When a compiled catalog is present, string values are also laid out by
+ *     the slots of its keys, so a {@link MessageKey} lookup is an array
+ *     access.
+ *
+ * <p>Format patterns are compiled the first time a key is formatted and
+ *     reused afterwards. {@link MessageFormat} is not thread safe, so each
+ *     thread gets its own copy of the compiled format.
+ *
+ * <p>{@link Text} and {@link TextTemplate} values are immutable, so they are
+ *     deserialized once per key and shared. Malformed values are remembered
+ *     as well, so a broken entry is only parsed once.
+ */
+final class MessageCatalog {
+
+    private static final int EMPTY = -1;
+
+    private final String[] keys;
+    private final String[] values;
+    @Nullable private final Object[] structured;
+    private final int[] table;
+    private final ConcurrentMap<String, StringFormat> stringFormats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ThreadLocal<MessageFormat>> messageFormats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<Text>> jsonTexts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<Text>> formatCodeTexts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<TextTemplate>> templates = new ConcurrentHashMap<>();
+    @Nullable private final String[] slotKeys;
+    @Nullable private final String[] slotValues;
+    @Nullable private final AtomicReferenceArray<StringFormat> slotFormats;
+
+    private MessageCatalog(String[] keys, String[] values, @Nullable Object[] structured, @Nullable String[] slots) {
+        this.keys = keys;
+        this.values = values;
+        this.structured = structured;
+        this.table = new int[Integer.highestOneBit(Math.max(2, keys.length * 2) - 1) << 1];
+
+        Arrays.fill(table, EMPTY);
+
+        for (int i = 0; i < keys.length; i++) {
+            int bucket = spread(keys[i].hashCode()) & (table.length - 1);
+
+            while (table[bucket] != EMPTY) {
+                bucket = (bucket + 1) & (table.length - 1);
+            }
+
+            table[bucket] = i;
+        }
+
+        this.slotKeys = slots;
+
+        if (slots == null) {
+            this.slotValues = null;
+            this.slotFormats = null;
+        } else {
+            this.slotValues = new String[slots.length];
+            this.slotFormats = new AtomicReferenceArray<>(slots.length);
+
+            for (int i = 0; i < slots.length; i++) {
+                slotValues[i] = getString(slots[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@link Builder}.
+     *
+     * @param strings The interner deduplicating the strings of the catalog.
+     * @return The builder.
+     */
+    static Builder builder(Interner<String> strings) {
+        return new Builder(strings);
+    }
+
+    /**
+     * Checks whether a key is in this catalog, either with a value or as the
+     *     parent of other keys.
+     *
+     * @param key The full dotted key.
+     * @return {@code true} if the key is in this catalog.
+     */
+    boolean contains(String key) {
+        return find(key) != EMPTY;
+    }
+
+    /**
+     * Creates a node holding the value of a key.
+     *
+     * <p>The catalog does not keep any nodes, the node of a parent key is
+     *     built from the values of its child keys.
+     *
+     * @param key The full dotted key.
+     * @return The node, or {@code null} if the key is missing.
+     */
+    @Nullable
+    ConfigurationNode getNode(String key) {
+        int index = find(key);
+
+        if (index == EMPTY) {
+            return null;
+        }
+
+        Object value = getValue(index);
+
+        if (value != null) {
+            return SimpleConfigurationNode.root().setValue(value);
+        }
+
+        ConfigurationNode node = SimpleConfigurationNode.root();
+        String prefix = key + '.';
+
+        for (int i = 0; i < keys.length; i++) {
+            value = getValue(i);
+
+            if (value != null && keys[i].startsWith(prefix)) {
+                node.getNode((Object[]) keys[i].substring(prefix.length()).split("\\.")).setValue(value);
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Gets the string value for a key.
+     *
+     * @param key The full dotted key.
+     * @return The value, or {@code null} if the key is missing or has no
+     *     string value.
+     */
+    @Nullable
+    String getString(String key) {
+        int index = find(key);
+        return index == EMPTY ? null : values[index];
+    }
+
+    /**
+     * Gets the string value for a key by its slot.
+     *
+     * @param key The key.
+     * @return The value, or {@code null} if the key is missing or has no
+     *     string value.
+     */
+    @Nullable
+    String getString(MessageKey key) {
+        if (slotValues == null || !hasSlot(key)) {
+            return getString(key.getKey());
+        }
+
+        return slotValues[key.getSlot()];
+    }
+
+    /**
+     * Gets the compiled {@link String#format(String, Object...)} pattern for
+     *     a key.
+     *
+     * @param key The full dotted key.
+     * @return The format, or {@code null} if the key is missing or has no
+     *     string value.
+     */
+    @Nullable
+    StringFormat getStringFormat(String key) {
+        StringFormat format = stringFormats.get(key);
+
+        if (format == null) {
+            String value = getString(key);
+
+            if (value == null) {
+                return null;
+            }
+
+            format = stringFormats.computeIfAbsent(key, k -> StringFormat.compile(value));
+        }
+
+        return format;
+    }
+
+    /**
+     * Gets the compiled {@link String#format(String, Object...)} pattern for
+     *     a key by its slot.
+     *
+     * @param key The key.
+     * @return The format, or {@code null} if the key is missing or has no
+     *     string value.
+     */
+    @Nullable
+    StringFormat getStringFormat(MessageKey key) {
+        if (slotFormats == null || !hasSlot(key)) {
+            return getStringFormat(key.getKey());
+        }
+
+        StringFormat format = slotFormats.get(key.getSlot());
+
+        if (format == null) {
+            format = getStringFormat(key.getKey());
+
+            if (format != null) {
+                slotFormats.lazySet(key.getSlot(), format);
+            }
+        }
+
+        return format;
+    }
+
+    /**
+     * Gets the compiled {@link MessageFormat} for a key, owned by the calling
+     *     thread.
+     *
+     * @param key The full dotted key.
+     * @return The format, or {@code null} if the key is missing or has no
+     *     string value.
+     * @throws IllegalArgumentException Thrown if the value is not a valid
+     *     {@link MessageFormat} pattern.
+     */
+    @Nullable
+    MessageFormat getMessageFormat(String key) {
+        ThreadLocal<MessageFormat> format = messageFormats.get(key);
+
+        if (format == null) {
+            String value = getString(key);
+
+            if (value == null) {
+                return null;
+            }
+
+            MessageFormat prototype = new MessageFormat(value);
+            format = messageFormats.computeIfAbsent(key, k -> ThreadLocal.withInitial(() -> (MessageFormat) prototype.clone()));
+        }
+
+        return format.get();
+    }
+
+    /**
+     * Gets the json {@link Text} for a key.
+     *
+     * @param key The full dotted key.
+     * @return The text, or {@code null} if the key is missing or malformed.
+     */
+    @Nullable
+    Text getJsonText(String key) {
+        return getParsed(jsonTexts, key, node -> {
+            try {
+                return Optional.ofNullable(node.getValue(TypeToken.of(Text.class)));
+            } catch (ObjectMappingException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Gets the formatting code {@link Text} for a key.
+     *
+     * @param key The full dotted key.
+     * @return The text, or {@code null} if the key is missing or malformed.
+     */
+    @Nullable
+    Text getFormatCodeText(String key) {
+        return getParsed(formatCodeTexts, key, node -> {
+            try {
+                return Optional.of(TextSerializers.FORMATTING_CODE.deserialize(node.getString()));
+            } catch (TextParseException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Gets the {@link TextTemplate} for a key.
+     *
+     * @param key The full dotted key.
+     * @return The template, or {@code null} if the key is missing or
+     *     malformed.
+     */
+    @Nullable
+    TextTemplate getTemplate(String key) {
+        return getParsed(templates, key, node -> {
+            try {
+                return Optional.ofNullable(node.getValue(TypeToken.of(TextTemplate.class)));
+            } catch (ObjectMappingException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Builds the derived values of every key that was formatted or parsed in
+     *     another catalog, so a catalog replacing it starts warm.
+     *
+     * @param previous The catalog to copy the used keys from.
+     */
+    void warm(MessageCatalog previous) {
+        previous.stringFormats.keySet().forEach(this::getStringFormat);
+        previous.messageFormats.keySet().forEach(key -> {
+            try {
+                getMessageFormat(key);
+            } catch (IllegalArgumentException ignored) {
+                // The pattern was changed into an invalid one, it fails again when it is used
+            }
+        });
+        previous.jsonTexts.keySet().forEach(this::getJsonText);
+        previous.formatCodeTexts.keySet().forEach(this::getFormatCodeText);
+        previous.templates.keySet().forEach(this::getTemplate);
+    }
+
+    @Nullable
+    private <T> T getParsed(ConcurrentMap<String, Optional<T>> cache, String key, Function<ConfigurationNode, Optional<T>> parser) {
+        Optional<T> parsed = cache.get(key);
+
+        if (parsed == null) {
+            ConfigurationNode node = getNode(key);
+
+            if (node == null) {
+                return null;
+            }
+
+            parsed = cache.computeIfAbsent(key, k -> parser.apply(node));
+        }
+
+        return parsed.orElse(null);
+    }
+
+    /**
+     * Gets the number of keys with a value.
+     *
+     * @return The number of values.
+     */
+    int size() {
+        int size = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            if (getValue(i) != null) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Gets the number of distinct strings held by this catalog.
+     *
+     * @return The number of distinct strings.
+     */
+    int getDistinctStrings() {
+        return distinct().size();
+    }
+
+    /**
+     * Estimates the heap used by the keys, values and index of this catalog.
+     *
+     * <p>Every distinct string is counted once, assuming compressed object
+     *     pointers and two bytes per character. The caches of derived values
+     *     are not included.
+     *
+     * @return The estimated size in bytes.
+     */
+    long getEstimatedSize() {
+        long size = array(keys.length) + array(values.length) + array(table.length);
+
+        for (String string : distinct()) {
+            size += align(24) + array(string.length() * 2L, 1);
+        }
+
+        return size;
+    }
+
+    /**
+     * Performs an action for every key with a string value.
+     *
+     * @param action The action.
+     */
+    void forEach(BiConsumer<String, String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Gets the original value of a key, or null for a parent key
+    @Nullable
+    private Object getValue(int index) {
+        if (structured != null && structured[index] != null) {
+            return structured[index];
+        }
+
+        return values[index];
+    }
+
+    private int find(String key) {
+        int bucket = spread(key.hashCode()) & (table.length - 1);
+
+        while (table[bucket] != EMPTY) {
+            if (keys[table[bucket]].equals(key)) {
+                return table[bucket];
+            }
+
+            bucket = (bucket + 1) & (table.length - 1);
+        }
+
+        return EMPTY;
+    }
+
+    private Set<String> distinct() {
+        Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(strings, keys);
+
+        for (String value : values) {
+            if (value != null) {
+                strings.add(value);
+            }
+        }
+
+        return strings;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long array(long length) {
+        return array(length, 4);
+    }
+
+    private static long array(long length, int scale) {
+        return align(16 + length * scale);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    // A key whose slot holds another key was not generated from this catalog, it is looked up by name instead
+    private boolean hasSlot(MessageKey key) {
+        // Compiled keys and generated constants are both interned, so this is usually a reference comparison
+        return slotKeys != null && key.getSlot() < slotKeys.length && slotKeys[key.getSlot()].equals(key.getKey());
+    }
+
+    /**
+     * Builds {@link MessageCatalog}s from node trees.
+     *
+     * <p>Keys and values are deduplicated through the interner, so catalogs
+     *     built with the same interner share equal strings. A key that is
+     *     already present keeps its value, which lets a catalog be layered
+     *     from the most specific bundle to the least specific one.
+     */
+    static final class Builder {
+
+        private final Interner<String> strings;
+        private final Map<String, Object> entries = new LinkedHashMap<>();
+
+        private Builder(Interner<String> strings) {
+            this.strings = strings;
+        }
+
+        /**
+         * Adds every key of a node tree that is not present yet.
+         *
+         * @param root The root node.
+         * @return This builder.
+         */
+        Builder add(ConfigurationNode root) {
+            root.getChildrenMap().forEach((key, child) -> add(key.toString(), child));
+            return this;
+        }
+
+        /**
+         * Adds every key of a catalog that is not present yet.
+         *
+         * @param catalog The catalog.
+         * @return This builder.
+         */
+        Builder add(MessageCatalog catalog) {
+            for (int i = 0; i < catalog.keys.length; i++) {
+                put(catalog.keys[i], catalog.getValue(i));
+            }
+
+            return this;
+        }
+
+        /**
+         * Adds a key if it is not present yet.
+         *
+         * @param key The full dotted key.
+         * @param value The value, or {@code null} for a parent key.
+         * @return This builder.
+         */
+        Builder add(String key, @Nullable String value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * Adds a key and every key below it that is not present yet.
+         *
+         * @param key The full dotted key.
+         * @param node The node of the key.
+         * @return This builder.
+         */
+        Builder add(String key, ConfigurationNode node) {
+            if (node.hasMapChildren()) {
+                put(key, null);
+                node.getChildrenMap().forEach((childKey, child) -> add(key + '.' + childKey, child));
+            } else {
+                put(key, node.getValue());
+            }
+
+            return this;
+        }
+
+        /**
+         * Builds the catalog.
+         *
+         * @param slots The keys by slot of the compiled catalog, or
+         *     {@code null} if there is no compiled catalog.
+         * @return The catalog.
+         */
+        MessageCatalog build(@Nullable String[] slots) {
+            String[] keys = new String[entries.size()];
+            String[] values = new String[entries.size()];
+            Object[] structured = null;
+            int i = 0;
+
+            for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                Object value = entry.getValue();
+                keys[i] = entry.getKey();
+
+                if (value == null || value instanceof String) {
+                    values[i] = (String) value;
+                } else {
+                    // Only lists, numbers and booleans keep their original value, the rest of the catalog stays strings
+                    if (structured == null) {
+                        structured = new Object[entries.size()];
+                    }
+
+                    structured[i] = value;
+                    values[i] = value instanceof List || value instanceof Map ? null : strings.intern(value.toString());
+                }
+
+                i++;
+            }
+
+            return new MessageCatalog(keys, values, structured, slots);
+        }
+
+        private void put(String key, @Nullable Object value) {
+            if (!entries.containsKey(key)) {
+                entries.put(strings.intern(key), value instanceof String ? strings.intern((String) value) : value);
+            }
+        }
+
+    }
+
+}
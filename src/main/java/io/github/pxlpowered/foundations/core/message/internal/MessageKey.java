@@ -0,0 +1,103 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A key of the internal messages catalog, bound to its slot in the compiled
+ *     catalog.
+ *
+ * <p>Keys are only created by {@code MessageKeys}, which is generated at
+ *     build time with a constant for every key in the default bundle, so a
+ *     mistyped key fails to compile. Looking up a message by its
+ *     {@link MessageKey} is an array access when the compiled catalog is
+ *     present and its slot holds the same key, and a map lookup by
+ *     {@link #getKey()} otherwise.
+ */
+public final class MessageKey {
+
+    private final String key;
+    private final int slot;
+
+    /**
+     * Constructs a new instance of {@link MessageKey}.
+     *
+     * @param key The full dotted key.
+     * @param slot The slot of the key in the compiled catalog.
+     */
+    MessageKey(String key, int slot) {
+        checkNotNull(key, "key");
+        checkArgument(slot >= 0, "slot must not be negative");
+
+        this.key = key;
+        this.slot = slot;
+    }
+
+    /**
+     * Gets the full dotted key.
+     *
+     * @return The key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the slot of the key in the compiled catalog.
+     *
+     * @return The slot.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof MessageKey)) {
+            return false;
+        }
+
+        MessageKey that = (MessageKey) o;
+        return slot == that.slot && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.github.pxlpowered.foundations.core.metrics.Histogram;
+import io.github.pxlpowered.foundations.core.metrics.MetricsRegistry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage metrics of {@link InternalMessages}.
+ *
+ * <p>Every lookup is counted per key and per method, and lookups of missing
+ *     keys are counted separately. The time it takes to render a
+ *     {@link org.spongepowered.api.text.Text} is sampled into the
+ *     {@code messages.render} {@link Histogram} of the {@link MetricsRegistry}.
+ *
+ * <p>Counters are striped, so recording never blocks and stays cheap under
+ *     contention. The totals are also published to the
+ *     {@link MetricsRegistry} under {@code messages}.
+ */
+public final class MessageMetrics {
+
+    private static final int SAMPLE_RATE = 16;
+
+    private final ConcurrentMap<String, LongAdder> lookups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> misses = new ConcurrentHashMap<>();
+    private final LongAdder[] methods = new LongAdder[Method.values().length];
+    private final Histogram renderHistogram = MetricsRegistry.histogram("messages.render");
+
+    /**
+     * Constructs a new instance of {@link MessageMetrics}.
+     */
+    MessageMetrics() {
+        for (Method method : Method.values()) {
+            LongAdder counter = new LongAdder();
+
+            methods[method.ordinal()] = counter;
+            MetricsRegistry.gauge("messages.lookups." + method.name().toLowerCase(Locale.ROOT), counter::sum);
+        }
+
+        MetricsRegistry.gauge("messages.lookups", () -> sum(lookups));
+        MetricsRegistry.gauge("messages.misses", () -> sum(misses));
+        MetricsRegistry.gauge("messages.misses.keys", misses::size);
+    }
+
+    /**
+     * Records a lookup.
+     *
+     * @param key The key that was looked up.
+     * @param method The method used for the lookup.
+     */
+    void lookup(String key, Method method) {
+        increment(lookups, key);
+        methods[method.ordinal()].increment();
+    }
+
+    /**
+     * Records a lookup of a missing key.
+     *
+     * @param key The missing key.
+     */
+    void miss(String key) {
+        increment(misses, key);
+    }
+
+    /**
+     * Starts timing a render, if this render is sampled.
+     *
+     * @return The start time, or {@code -1} if this render is not sampled.
+     */
+    long startRender() {
+        return ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0 ? System.nanoTime() : -1;
+    }
+
+    /**
+     * Stops timing a render.
+     *
+     * @param start The start time returned by {@link #startRender()}.
+     */
+    void endRender(long start) {
+        if (start < 0) {
+            return;
+        }
+
+        renderHistogram.recordSince(start);
+    }
+
+    /**
+     * Gets the number of lookups of a key.
+     *
+     * @param key The key.
+     * @return The number of lookups.
+     */
+    public long getLookups(String key) {
+        checkNotNull(key, "key");
+
+        LongAdder adder = lookups.get(key);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Gets the number of lookups of every key.
+     *
+     * @return The number of lookups by key.
+     */
+    public Map<String, Long> getLookups() {
+        return snapshot(lookups);
+    }
+
+    /**
+     * Gets the number of lookups through a method.
+     *
+     * @param method The method.
+     * @return The number of lookups.
+     */
+    public long getLookups(Method method) {
+        checkNotNull(method, "method");
+
+        return methods[method.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of lookups through every method.
+     *
+     * @return The number of lookups by method.
+     */
+    public Map<Method, Long> getMethodLookups() {
+        Map<Method, Long> result = new EnumMap<>(Method.class);
+
+        for (Method method : Method.values()) {
+            result.put(method, methods[method.ordinal()].sum());
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Gets the number of lookups of every missing key.
+     *
+     * @return The number of misses by key.
+     */
+    public Map<String, Long> getMisses() {
+        return snapshot(misses);
+    }
+
+    /**
+     * Gets the sampled render latencies.
+     *
+     * <p>The latencies are read from the {@code messages.render}
+     *     {@link Histogram}, see {@link Histogram#getBuckets(TimeUnit)}.
+     *
+     * @param unit The unit of the bucket bounds.
+     * @return The number of samples by bucket upper bound.
+     */
+    public SortedMap<Long, Long> getRenderLatencies(TimeUnit unit) {
+        return renderHistogram.getBuckets(unit);
+    }
+
+    /**
+     * Writes all metrics to a file, replacing it if it exists.
+     *
+     * @param path The file to write to.
+     * @throws IOException Thrown if the file could not be written.
+     */
+    public void dump(Path path) throws IOException {
+        checkNotNull(path, "path");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# Lookups by method");
+            writer.newLine();
+
+            for (Map.Entry<Method, Long> entry : getMethodLookups().entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue());
+                writer.newLine();
+            }
+
+            writer.newLine();
+            writer.write("# Lookups by key");
+            writer.newLine();
+
+            for (Map.Entry<String, Long> entry : getLookups().entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue());
+                writer.newLine();
+            }
+
+            writer.newLine();
+            writer.write("# Missing keys");
+            writer.newLine();
+
+            for (Map.Entry<String, Long> entry : getMisses().entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue());
+                writer.newLine();
+            }
+
+            writer.newLine();
+            writer.write("# Sampled render latency, 1 in " + SAMPLE_RATE + ", by bucket upper bound in microseconds");
+            writer.newLine();
+
+            for (Map.Entry<Long, Long> entry : getRenderLatencies(TimeUnit.MICROSECONDS).entrySet()) {
+                writer.write((entry.getKey() == Long.MAX_VALUE ? "+Inf" : entry.getKey().toString()) + "=" + entry.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void increment(ConcurrentMap<String, LongAdder> counters, String key) {
+        LongAdder adder = counters.get(key);
+
+        if (adder == null) {
+            adder = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+
+        adder.increment();
+    }
+
+    private static long sum(ConcurrentMap<String, LongAdder> counters) {
+        long sum = 0;
+
+        for (LongAdder counter : counters.values()) {
+            sum += counter.sum();
+        }
+
+        return sum;
+    }
+
+    private static Map<String, Long> snapshot(ConcurrentMap<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, adder) -> result.put(key, adder.sum()));
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * The lookup methods of {@link InternalMessages}.
+     */
+    public enum Method {
+
+        /**
+         * {@link InternalMessages#getLog(String)}.
+         */
+        LOG,
+
+        /**
+         * {@link InternalMessages#getPlain(String)}.
+         */
+        PLAIN,
+
+        /**
+         * {@link InternalMessages#getStringFormatted(String, Object...)}.
+         */
+        STRING_FORMATTED,
+
+        /**
+         * {@link InternalMessages#getTextFormatted(String, Object...)}.
+         */
+        TEXT_FORMATTED,
+
+        /**
+         * {@link InternalMessages#getJsonText(String)}.
+         */
+        JSON_TEXT,
+
+        /**
+         * {@link InternalMessages#getFormatCodeText(String)}.
+         */
+        FORMAT_CODE_TEXT,
+
+        /**
+         * {@link InternalMessages#getTemplateText(String, Map)}.
+         */
+        TEMPLATE_TEXT
+
+    }
+
+}
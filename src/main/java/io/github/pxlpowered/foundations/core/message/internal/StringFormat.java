@@ -0,0 +1,139 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.List;
+import java.util.MissingFormatArgumentException;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link String#format(String, Object...)} pattern compiled once into its
+ *     literal segments.
+ *
+ * <p>Only {@code %s}, {@code %n} and {@code %%} are compiled. Any other
+ *     conversion, and any {@link Formattable} argument, falls back to
+ *     {@link String#format(String, Object...)} so the output is always the
+ *     same as formatting the raw pattern.
+ */
+final class StringFormat {
+
+    private final String pattern;
+    @Nullable private final String[] literals;
+    private final int length;
+
+    private StringFormat(String pattern, @Nullable String[] literals) {
+        this.pattern = pattern;
+        this.literals = literals;
+
+        int length = 0;
+
+        if (literals != null) {
+            for (String literal : literals) {
+                length += literal.length();
+            }
+        }
+
+        this.length = length;
+    }
+
+    /**
+     * Compiles a pattern.
+     *
+     * @param pattern The pattern.
+     * @return The compiled format.
+     */
+    static StringFormat compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+
+            if (++i == pattern.length()) {
+                return new StringFormat(pattern, null);
+            }
+
+            switch (pattern.charAt(i)) {
+                case 's':
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    break;
+                case 'n':
+                    literal.append(System.lineSeparator());
+                    break;
+                case '%':
+                    literal.append('%');
+                    break;
+                default:
+                    return new StringFormat(pattern, null);
+            }
+        }
+
+        literals.add(literal.toString());
+
+        return new StringFormat(pattern, literals.toArray(new String[literals.size()]));
+    }
+
+    /**
+     * Formats the arguments into this pattern.
+     *
+     * @param args The arguments.
+     * @return The formatted string.
+     */
+    String format(Object... args) {
+        if (literals == null) {
+            return String.format(pattern, args);
+        }
+
+        if (args.length < literals.length - 1) {
+            throw new MissingFormatArgumentException("Format specifier '%s'");
+        }
+
+        for (int i = 0; i < literals.length - 1; i++) {
+            if (args[i] instanceof Formattable) {
+                return String.format(pattern, args);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(length + 16 * (literals.length - 1));
+        builder.append(literals[0]);
+
+        for (int i = 1; i < literals.length; i++) {
+            builder.append(args[i - 1]).append(literals[i]);
+        }
+
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed buckets.
+ *
+ * <p>The bucket bounds are powers of two, starting at one microsecond, and
+ *     the last bucket holds every latency above about eight seconds.
+ *     Percentiles are reported as the upper bound of the bucket they fall
+ *     into, capped at the maximum, so they are exact to a factor of two.
+ */
+public final class Histogram {
+
+    private static final int BUCKETS = 24;
+    private static final long FIRST_BUCKET = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs a new instance of {@link Histogram}.
+     */
+    Histogram() {
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param duration The latency.
+     * @param unit The unit of the latency.
+     */
+    public void record(long duration, TimeUnit unit) {
+        long nanos = Math.max(0, unit.toNanos(duration));
+        int bucket = 0;
+
+        while (bucket < BUCKETS && nanos > FIRST_BUCKET << bucket) {
+            bucket++;
+        }
+
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Records the time passed since a start time.
+     *
+     * @param start The start time, from {@link System#nanoTime()}.
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean latency.
+     *
+     * @param unit The unit to get the mean in.
+     * @return The mean, or {@code 0} if nothing was recorded.
+     */
+    public long getMean(TimeUnit unit) {
+        long count = getCount();
+        return count == 0 ? 0 : unit.convert(sum.sum() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the highest latency.
+     *
+     * @param unit The unit to get the maximum in.
+     * @return The maximum, or {@code 0} if nothing was recorded.
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of recorded latencies in every bucket.
+     *
+     * <p>Every entry maps the upper bound of a bucket to the number of
+     *     latencies in it. The last bucket has no upper bound and is keyed by
+     *     {@link Long#MAX_VALUE}.
+     *
+     * @param unit The unit of the bucket bounds.
+     * @return The count by bucket upper bound.
+     */
+    public SortedMap<Long, Long> getBuckets(TimeUnit unit) {
+        checkNotNull(unit, "unit");
+
+        SortedMap<Long, Long> result = new TreeMap<>();
+
+        for (int i = 0; i < BUCKETS; i++) {
+            result.merge(unit.convert(FIRST_BUCKET << i, TimeUnit.NANOSECONDS), buckets.get(i), Long::sum);
+        }
+
+        result.put(Long.MAX_VALUE, buckets.get(BUCKETS));
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /**
+     * Gets a percentile of the latency.
+     *
+     * @param percentile The percentile, between {@code 0} and {@code 100}.
+     * @param unit The unit to get the percentile in.
+     * @return The upper bound of the bucket holding the percentile capped at
+     *     the maximum, or {@code 0} if nothing was recorded.
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        checkNotNull(unit, "unit");
+
+        long[] counts = new long[BUCKETS + 1];
+        long total = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+
+            if (seen >= rank) {
+                return unit.convert(Math.min(FIRST_BUCKET << i, max.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        return getMax(unit);
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * The process wide registry of Foundations metrics.
+ *
+ * <p>Metrics are identified by dotted names, for example
+ *     {@code configuration.load}. Getting a metric by a name that is already
+ *     registered returns the registered metric, so callers can look metrics
+ *     up once and keep them in a field.
+ *
+ * <p>All metrics are exposed through JMX, see {@link JmxMetrics}, and through
+ *     the {@code /foundations metrics} command.
+ */
+public final class MetricsRegistry {
+
+    private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    // Do not instantiate
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Gets or registers a counter.
+     *
+     * @param name The name of the counter.
+     * @return The counter.
+     */
+    public static Counter counter(String name) {
+        checkNotNull(name, "name");
+
+        return COUNTERS.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Registers a gauge, replacing the gauge registered with the same name.
+     *
+     * <p>The gauge is read every time the metrics are queried.
+     *
+     * @param name The name of the gauge.
+     * @param gauge The gauge.
+     */
+    public static void gauge(String name, LongSupplier gauge) {
+        checkNotNull(name, "name");
+        checkNotNull(gauge, "gauge");
+
+        GAUGES.put(name, gauge);
+    }
+
+    /**
+     * Gets or registers a histogram.
+     *
+     * @param name The name of the histogram.
+     * @return The histogram.
+     */
+    public static Histogram histogram(String name) {
+        checkNotNull(name, "name");
+
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Gets the current value of every metric, by name.
+     *
+     * <p>Counters and gauges map to their value. Every histogram maps to its
+     *     {@code count}, and its {@code mean}, {@code p50}, {@code p99} and
+     *     {@code max} in microseconds, each as a suffix of its name.
+     *
+     * @return The values, sorted by name.
+     */
+    public static SortedMap<String, Long> getValues() {
+        SortedMap<String, Long> values = new TreeMap<>();
+
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.getCount()));
+        GAUGES.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        HISTOGRAMS.forEach((name, histogram) -> {
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".mean", histogram.getMean(TimeUnit.MICROSECONDS));
+            values.put(name + ".p50", histogram.getPercentile(50, TimeUnit.MICROSECONDS));
+            values.put(name + ".p99", histogram.getPercentile(99, TimeUnit.MICROSECONDS));
+            values.put(name + ".max", histogram.getMax(TimeUnit.MICROSECONDS));
+        });
+
+        return Collections.unmodifiableSortedMap(values);
+    }
+
+    /**
+     * Gets the current value of a metric.
+     *
+     * @param name The name, as returned by {@link #getValues()}.
+     * @return The value, or {@code null} if there is no such metric.
+     */
+    @Nullable
+    public static Long getValue(String name) {
+        checkNotNull(name, "name");
+
+        Counter counter = COUNTERS.get(name);
+
+        if (counter != null) {
+            return counter.getCount();
+        }
+
+        LongSupplier gauge = GAUGES.get(name);
+
+        if (gauge != null) {
+            return gauge.getAsLong();
+        }
+
+        return getValues().get(name);
+    }
+
+}
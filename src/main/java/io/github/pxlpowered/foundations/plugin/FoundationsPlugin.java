@@ -27,14 +27,37 @@
 
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import io.github.pxlpowered.foundations.core.concurrent.IoExecutor;
+import io.github.pxlpowered.foundations.core.configuration.ConfigurationRegistry;
+import io.github.pxlpowered.foundations.core.configuration.ConfigurationWriter;
 import io.github.pxlpowered.foundations.core.message.internal.InternalMessages;
+import io.github.pxlpowered.foundations.core.message.internal.MessageKeys;
+import io.github.pxlpowered.foundations.core.metrics.JmxMetrics;
 import org.slf4j.Logger;
+import org.spongepowered.api.GameState;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.config.ConfigDir;
 import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.game.GameReloadEvent;
+import org.spongepowered.api.event.game.state.GameInitializationEvent;
 import org.spongepowered.api.event.game.state.GamePreInitializationEvent;
+import org.spongepowered.api.event.game.state.GameStartedServerEvent;
+import org.spongepowered.api.event.game.state.GameStateEvent;
+import org.spongepowered.api.event.game.state.GameStoppedServerEvent;
 import org.spongepowered.api.plugin.Plugin;
 import org.spongepowered.api.plugin.PluginContainer;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nullable;
+import javax.management.JMException;
 
 /**
  * The main class for Foundations plugin.
@@ -42,7 +65,12 @@
 @Plugin(id = PluginInfo.ID)
 public final class FoundationsPlugin {
 
+    private static final String STARTUP_REPORT = "startup-report.txt";
+    private static final String MESSAGE_OVERRIDES = "messages";
+
     private final PluginContainer container;
+    private final StartupProfiler profiler = new StartupProfiler();
+    private final LifecycleGraph graph = new LifecycleGraph();
 
     @SuppressWarnings("NullableProblems")
     @Inject
@@ -52,12 +80,19 @@ public final class FoundationsPlugin {
     @Inject
     private Logger logger;
 
+    @SuppressWarnings("NullableProblems")
+    @Inject
+    @ConfigDir(sharedRoot = false)
+    private Path configDir;
+
     @Nullable
     private InternalMessages internalMessages;
 
     @Inject
     private FoundationsPlugin(PluginContainer container) {
         this.container = container;
+
+        graph.add(PluginStatus.INTERNAL_MESSAGES_CODE, GameState.PRE_INITIALIZATION, "internalmessages", this::loadInternalMessages);
     }
 
     /**
@@ -68,45 +103,178 @@ private FoundationsPlugin(PluginContainer container) {
     @Listener
     public void onPreInit(GamePreInitializationEvent event) {
         logger.info("Starting " + PluginInfo.ID);
+        PluginStatus.transition(PluginStatus.Lifecycle.CONSTRUCTED, PluginStatus.Lifecycle.STARTING);
+        IoExecutor.setPlugin(this);
 
-        try {
-            getLogger().debug("Attempting to load internal messages.");
-            final Throwable[] ex = new Throwable[0];
-
-            injector = injector.createChildInjector(binder -> binder.bind(InternalMessages.class).toProvider(() -> {
-                try {
-                    InternalMessages tmp = new InternalMessages(container);
-                    PluginStatus.setInternalMessages(true);
-                    return tmp;
-                } catch (Exception e1) {
-                    PluginStatus.setInternalMessages(false);
-                    PluginStatus.setErrored(true);
-                    ex[0] = e1;
-                    return null;
-                }
-            }));
-
-            if (PluginStatus.isErrored()) {
-                throw new RuntimeException(ex[0]);
+        try (StartupProfiler.Span phase = profiler.phase(event.getState())) {
+            graph.run(event.getState(), phase);
+
+            // Every pre initialization task succeeded, so internalMessages is not null
+            InternalMessages messages = internalMessages;
+            assert messages != null;
+
+            StartupProfiler.Span span = phase.child("plugin", "injector");
+
+            try {
+                injector = injector.createChildInjector(binder -> binder.bind(InternalMessages.class).toInstance(messages));
+            } finally {
+                span.close();
             }
 
-            internalMessages = injector.getProvider(InternalMessages.class).get();
+            getLogger().debug(messages.getLog(MessageKeys.INTERNALMESSAGES_LOAD_SUCCESS));
+            getLogger().debug(messages.getLog(MessageKeys.INTERNALMESSAGES_LOAD_FOOTPRINT), messages.getCatalogSize(),
+                    messages.getCatalogFootprint());
 
-            // We already confirmed that internalMessages is not null
-            assert internalMessages != null;
-            getLogger().debug(internalMessages.getLog("internalmessages.load.success"));
+            try {
+                JmxMetrics.register();
+                getLogger().debug(messages.getLog(MessageKeys.PLUGIN_METRICS_REGISTERED), JmxMetrics.OBJECT_NAME);
+            } catch (JMException e) {
+                getLogger().error(messages.getLog(MessageKeys.PLUGIN_METRICS_REGISTER_ERROR), JmxMetrics.OBJECT_NAME, e);
+            }
 
-            getLogger().info(internalMessages.getLog("plugin.phase.enter"), event.getState());
+            getLogger().info(messages.getLog(MessageKeys.PLUGIN_PHASE_ENTER), event.getState());
         } catch (Exception e) {
             PluginStatus.setErrored(true);
             PluginStatus.checkForError(this, e);
         }
 
         if (!PluginStatus.isErrored()) {
-            getLogger().info(internalMessages.getLog("plugin.phase.exit"), event.getState());
+            getLogger().info(internalMessages.getLog(MessageKeys.PLUGIN_PHASE_EXIT), event.getState());
         }
     }
 
+    /**
+     * Initialization tasks.
+     *
+     * <p>Registers the {@code /foundations} command.
+     *
+     * @param event The {@link GameInitializationEvent}.
+     */
+    @Listener
+    public void onInit(GameInitializationEvent event) {
+        if (PluginStatus.isErrored()) {
+            return;
+        }
+
+        Sponge.getCommandManager().register(this, MetricsCommand.create(), MetricsCommand.ALIAS);
+    }
+
+    /**
+     * Game state tasks.
+     *
+     * <p>Runs the lifecycle tasks of every phase after pre initialization,
+     *     and waits for them before the phase ends.
+     *
+     * @param event The {@link GameStateEvent}.
+     */
+    @Listener
+    public void onGameState(GameStateEvent event) {
+        if (event.getState() == GameState.PRE_INITIALIZATION || PluginStatus.isErrored() || !graph.hasTasks(event.getState())) {
+            return;
+        }
+
+        try (StartupProfiler.Span phase = profiler.phase(event.getState())) {
+            graph.run(event.getState(), phase);
+        } catch (Exception e) {
+            PluginStatus.setErrored(true);
+            PluginStatus.checkForError(this, e);
+        }
+    }
+
+    /**
+     * Server started tasks.
+     *
+     * <p>Logs the startup report and writes it to the plugin's config
+     *     directory.
+     *
+     * @param event The {@link GameStartedServerEvent}.
+     */
+    @Listener
+    public void onServerStarted(GameStartedServerEvent event) {
+        PluginStatus.transition(PluginStatus.Lifecycle.STARTING, PluginStatus.Lifecycle.STARTED);
+
+        if (internalMessages == null) {
+            return;
+        }
+
+        getLogger().info(internalMessages.getLog(MessageKeys.PLUGIN_PROFILER_REPORT));
+        profiler.report().forEach(getLogger()::info);
+
+        Path report = configDir.resolve(STARTUP_REPORT);
+
+        try {
+            profiler.write(report);
+            getLogger().debug(internalMessages.getLog(MessageKeys.PLUGIN_PROFILER_WRITTEN), report);
+        } catch (IOException e) {
+            getLogger().error(internalMessages.getLog(MessageKeys.PLUGIN_PROFILER_WRITE_ERROR), report, e);
+        }
+    }
+
+    /**
+     * Reload tasks.
+     *
+     * <p>Reloads the configurations which opted into bulk reloads in
+     *     parallel and swaps in freshly loaded internal messages, both off
+     *     the server thread. The results are logged on the server thread.
+     *
+     * @param event The {@link GameReloadEvent}.
+     */
+    @Listener
+    public void onReload(GameReloadEvent event) {
+        long start = System.nanoTime();
+
+        IoExecutor.supply(ConfigurationRegistry::reloadAll)
+                .thenAccept(results -> logReload(results, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+        if (internalMessages == null) {
+            return;
+        }
+
+        InternalMessages messages = internalMessages;
+        messages.reload().whenComplete((ignored, e) -> {
+            if (e == null) {
+                getLogger().debug(messages.getLog(MessageKeys.INTERNALMESSAGES_RELOAD_SUCCESS));
+            } else {
+                getLogger().error(messages.getLog(MessageKeys.INTERNALMESSAGES_RELOAD_ERROR), e);
+            }
+        });
+    }
+
+    /**
+     * Server stopped tasks.
+     *
+     * <p>Flushes pending write-behind configuration saves, after all plugins
+     *     had the chance to save during server stopping, and unregisters the
+     *     metrics from JMX.
+     *
+     * @param event The {@link GameStoppedServerEvent}.
+     */
+    @Listener
+    public void onServerStopped(GameStoppedServerEvent event) {
+        PluginStatus.Lifecycle lifecycle = PluginStatus.getLifecycle();
+
+        if (lifecycle.canTransitionTo(PluginStatus.Lifecycle.STOPPING)) {
+            PluginStatus.transition(lifecycle, PluginStatus.Lifecycle.STOPPING);
+        }
+
+        if (internalMessages != null) {
+            getLogger().debug(internalMessages.getLog(MessageKeys.CONFIGURATION_WRITER_FLUSH), ConfigurationWriter.getQueueDepth());
+        }
+
+        ConfigurationWriter.flush();
+
+        // The metrics are only registered once the internal messages loaded
+        if (internalMessages != null) {
+            try {
+                JmxMetrics.unregister();
+            } catch (JMException e) {
+                getLogger().error(internalMessages.getLog(MessageKeys.PLUGIN_METRICS_UNREGISTER_ERROR), JmxMetrics.OBJECT_NAME, e);
+            }
+        }
+
+        PluginStatus.transition(PluginStatus.Lifecycle.STOPPING, PluginStatus.Lifecycle.STOPPED);
+    }
+
     /**
      * Gets the currently active {@link Logger} for the plugin.
      *
@@ -125,4 +293,39 @@ public PluginContainer getContainer() {
         return container;
     }
 
+    private void loadInternalMessages() throws Exception {
+        getLogger().debug("Attempting to load internal messages.");
+
+        // Reading the bundles is blocking I/O, so it runs on the I/O executor while the lifecycle task waits for it
+        Future<InternalMessages> future = IoExecutor.fork(() -> new InternalMessages(container, configDir.resolve(MESSAGE_OVERRIDES)));
+
+        try {
+            internalMessages = future.get();
+            PluginStatus.setInternalMessages(true);
+        } catch (ExecutionException e) {
+            PluginStatus.setInternalMessages(false);
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (Exception e) {
+            PluginStatus.setInternalMessages(false);
+            throw e;
+        }
+    }
+
+    private void logReload(List<ConfigurationRegistry.ReloadResult> results, long duration) {
+        if (internalMessages == null) {
+            return;
+        }
+
+        results.forEach(result -> result.getError().ifPresent(e -> getLogger().error(
+                internalMessages.getLog(MessageKeys.CONFIGURATION_LOAD_ERROR_NO_DEBUG), result.getConfiguration().getUniqueId(), e)));
+
+        Optional<ConfigurationRegistry.ReloadResult> slowest = results.stream()
+                .max(Comparator.comparingLong(result -> result.getDuration(TimeUnit.NANOSECONDS)));
+
+        if (slowest.isPresent()) {
+            getLogger().info(internalMessages.getLog(MessageKeys.CONFIGURATION_RELOAD_SUMMARY), results.size(), duration,
+                    slowest.get().getConfiguration().getUniqueId(), slowest.get().getDuration(TimeUnit.MILLISECONDS));
+        }
+    }
+
 }
@@ -0,0 +1,295 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.plugin;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.spongepowered.api.GameState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A graph of startup tasks, run phase by phase.
+ *
+ * <p>Every task has an id, which is the {@link PluginStatus} code of the
+ *     subsystem it loads, the {@link GameState} it runs in, and the ids of
+ *     the tasks it depends on. A task may only depend on tasks of the same or
+ *     an earlier phase. The whole graph is validated before the first phase
+ *     runs, so an unknown dependency or a cycle fails startup before any
+ *     task ran. Running a phase runs its tasks on a bounded pool, as soon as
+ *     their dependencies are done, and waits until all of them are done. A
+ *     phase with a single task runs it on the calling thread instead.
+ *
+ * <p>A failed task fails every task depending on it, and the failure is
+ *     thrown once the phase is done.
+ */
+final class LifecycleGraph {
+
+    private static final int MAXIMUM_THREADS = 4;
+
+    private final Map<Character, Task> tasks = new LinkedHashMap<>();
+    private final Map<Character, CompletableFuture<Void>> done = new HashMap<>();
+    private boolean validated;
+
+    /**
+     * Adds a task.
+     *
+     * @param id The id of the task.
+     * @param state The phase the task runs in.
+     * @param subsystem The subsystem the task loads.
+     * @param action The work of the task.
+     * @param dependencies The ids of the tasks this task depends on.
+     * @throws IllegalStateException Thrown if the graph was validated
+     *     already.
+     */
+    void add(char id, GameState state, String subsystem, Action action, char... dependencies) {
+        checkNotNull(state, "state");
+        checkNotNull(subsystem, "subsystem");
+        checkNotNull(action, "action");
+        checkNotNull(dependencies, "dependencies");
+        checkArgument(!tasks.containsKey(id), "A task with id %s was already added", id);
+        checkState(!validated, "Task %s was added after the lifecycle graph was validated", id);
+
+        tasks.put(id, new Task(id, state, subsystem, action, dependencies));
+    }
+
+    /**
+     * Checks whether a phase has any tasks.
+     *
+     * @param state The phase.
+     * @return {@code true} if the phase has tasks.
+     */
+    boolean hasTasks(GameState state) {
+        return tasks.values().stream().anyMatch(task -> task.state == state);
+    }
+
+    /**
+     * Validates the dependencies of every task.
+     *
+     * <p>This is called by the first {@link #run(GameState, StartupProfiler.Span)},
+     *     and no tasks can be added afterwards.
+     *
+     * @throws IllegalStateException Thrown if a task depends on an unknown
+     *     task or a task of a later phase, or if tasks depend on each other.
+     */
+    void validate() {
+        if (validated) {
+            return;
+        }
+
+        for (Task task : tasks.values()) {
+            for (char id : task.dependencies) {
+                Task dependency = tasks.get(id);
+
+                checkState(dependency != null, "Lifecycle task %s depends on the unknown task %s", task.id, id);
+                checkState(dependency.state.ordinal() <= task.state.ordinal(), "Lifecycle task %s in %s depends on task %s of the later phase %s",
+                        task.id, task.state, id, dependency.state);
+            }
+        }
+
+        Set<Character> visited = new HashSet<>();
+
+        for (Task task : tasks.values()) {
+            visit(task, visited, new ArrayList<>());
+        }
+
+        validated = true;
+    }
+
+    /**
+     * Runs the tasks of a phase and waits until all of them are done.
+     *
+     * @param state The phase.
+     * @param phase The profiler span of the phase.
+     * @throws Exception Thrown by the first task that failed.
+     * @throws IllegalStateException Thrown if the graph is not valid.
+     */
+    void run(GameState state, StartupProfiler.Span phase) throws Exception {
+        checkNotNull(state, "state");
+        checkNotNull(phase, "phase");
+        validate();
+
+        List<Task> scheduled = new ArrayList<>();
+
+        for (Task task : tasks.values()) {
+            if (task.state == state) {
+                scheduled.add(task);
+            }
+        }
+
+        if (scheduled.isEmpty()) {
+            return;
+        }
+
+        if (scheduled.size() == 1 && isReady(scheduled.get(0))) {
+            // Nothing runs alongside a single task, so starting a pool for it would only cost threads
+            Task task = scheduled.get(0);
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            done.put(task.id, future);
+
+            try {
+                execute(task, phase);
+                future.complete(null);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                throw e;
+            }
+
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAXIMUM_THREADS, scheduled.size()),
+                new ThreadFactoryBuilder().setNameFormat("Foundations Lifecycle #%d").setDaemon(true).build());
+
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+            for (Task task : scheduled) {
+                futures.add(schedule(task, phase, executor));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void visit(Task task, Set<Character> visited, List<Character> path) {
+        if (visited.contains(task.id)) {
+            return;
+        }
+
+        checkState(!path.contains(task.id), "Lifecycle tasks %s depend on each other", path);
+        path.add(task.id);
+
+        for (char id : task.dependencies) {
+            visit(tasks.get(id), visited, path);
+        }
+
+        path.remove(path.size() - 1);
+        visited.add(task.id);
+    }
+
+    private boolean isReady(Task task) {
+        for (char id : task.dependencies) {
+            CompletableFuture<Void> dependency = done.get(id);
+
+            if (dependency == null || !dependency.isDone() || dependency.isCompletedExceptionally()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private CompletableFuture<Void> schedule(Task task, StartupProfiler.Span phase, ExecutorService executor) {
+        CompletableFuture<Void> future = done.get(task.id);
+
+        if (future != null) {
+            return future;
+        }
+
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+
+        for (char id : task.dependencies) {
+            dependencies.add(schedule(tasks.get(id), phase, executor));
+        }
+
+        future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[dependencies.size()])).thenRunAsync(() -> {
+            try {
+                execute(task, phase);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+
+        done.put(task.id, future);
+        return future;
+    }
+
+    private static void execute(Task task, StartupProfiler.Span phase) throws Exception {
+        StartupProfiler.Span span = phase.child(task.subsystem, String.valueOf(task.id));
+
+        try {
+            task.action.run();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * The work of a lifecycle task.
+     */
+    @FunctionalInterface
+    interface Action {
+
+        /**
+         * Runs the task.
+         *
+         * @throws Exception Thrown if the task failed.
+         */
+        void run() throws Exception;
+
+    }
+
+    private static final class Task {
+
+        private final char id;
+        private final GameState state;
+        private final String subsystem;
+        private final Action action;
+        private final char[] dependencies;
+
+        private Task(char id, GameState state, String subsystem, Action action, char[] dependencies) {
+            this.id = id;
+            this.state = state;
+            this.subsystem = subsystem;
+            this.action = action;
+            this.dependencies = dependencies.clone();
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.plugin;
+
+import io.github.pxlpowered.foundations.core.metrics.MetricsRegistry;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.spec.CommandExecutor;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+
+/**
+ * The {@code /foundations metrics} command, which lists every metric of the
+ *     {@link MetricsRegistry} with its current value.
+ */
+final class MetricsCommand implements CommandExecutor {
+
+    static final String ALIAS = PluginInfo.ID;
+    static final String PERMISSION = PluginInfo.ID + ".command.metrics";
+
+    // Only instantiated by create
+    private MetricsCommand() {
+    }
+
+    /**
+     * Creates the {@code /foundations} command with its {@code metrics}
+     *     child.
+     *
+     * @return The command.
+     */
+    static CommandSpec create() {
+        CommandSpec metrics = CommandSpec.builder()
+                .description(Text.of("Shows the Foundations metrics"))
+                .permission(PERMISSION)
+                .executor(new MetricsCommand())
+                .build();
+
+        return CommandSpec.builder()
+                .description(Text.of("Foundations commands"))
+                .child(metrics, "metrics")
+                .build();
+    }
+
+    @Override
+    public CommandResult execute(CommandSource src, CommandContext args) {
+        MetricsRegistry.getValues().forEach((name, value) -> src.sendMessage(Text.of(name, ": ", value)));
+
+        return CommandResult.success();
+    }
+
+}
@@ -25,13 +25,29 @@
 
 package io.github.pxlpowered.foundations.plugin;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import io.github.pxlpowered.foundations.core.message.internal.InternalMessages;
+import io.github.pxlpowered.foundations.core.metrics.Counter;
+import io.github.pxlpowered.foundations.core.metrics.MetricsRegistry;
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
 
 /**
  * Handles the global plugin status.
+ *
+ * <p>The status is a single atomic word of bits, so it can be read from any
+ *     thread without locking and every transition is a compare and set. The
+ *     low byte holds the subsystem bits and the byte above it the
+ *     {@link Lifecycle} state, which only moves along its defined
+ *     transitions.
  */
 public final class PluginStatus {
 
@@ -61,7 +77,7 @@ public final class PluginStatus {
      * <p><b>NOTE: </b>A {@code byte} is used here. When doing bitwise
      *     operations, cast to a long or shift bits to compensate.
      *
-     * @see #INTERNAL_MESSAGES_CODE
+     * @see #GLOBAL_CONFIG_CODE
      */
     private static final byte GLOBAL_CONFIG = 0x2;
 
@@ -80,14 +96,32 @@ public final class PluginStatus {
      */
     private static final byte MAIN_CONFIGS = 0x8;
 
-    // We use bits to save memory
-    private static long state = 0x1;
-    private static boolean errored = false;
+    /**
+     * The plugin is in an error state.
+     *
+     * <p><b>NOTE: </b>A {@code byte} is used here. When doing bitwise
+     *     operations, cast to a {@code long} or shift bits to compensate.
+     */
+    private static final byte ERRORED = 0x40;
+
+    private static final int LIFECYCLE_SHIFT = 8;
+    private static final long LIFECYCLE_MASK = 0xFFL << LIFECYCLE_SHIFT;
+    private static final Lifecycle[] LIFECYCLES = Lifecycle.values();
+
+    // We use bits to save memory, all of them in one word so every transition is atomic
+    private static final AtomicLong STATE = new AtomicLong();
+    private static final Logger LOGGER = LoggerFactory.getLogger(PluginStatus.class);
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final Counter TRANSITIONS = MetricsRegistry.counter("plugin.status.transitions");
 
     public static final char INTERNAL_MESSAGES_CODE = 'I';
     public static final char GLOBAL_CONFIG_CODE = 'G';
     public static final char MAIN_CONFIGS_CODE = 'C';
 
+    static {
+        MetricsRegistry.gauge("plugin.status", STATE::get);
+    }
+
     // Do not instantiate
     private PluginStatus() {
     }
@@ -98,22 +132,120 @@ private PluginStatus() {
      * @return The state value.
      */
     public static long getState() {
-        return state;
+        return STATE.get();
     }
 
     /**
-     * Sets the internal messages bit.
+     * Transitions from one state value to another, if the state value is
+     *     still the expected one.
      *
-     * @param internalMessages {@code true} for set, {@code false} for unset.
+     * @param expect The expected state value.
+     * @param update The new state value.
+     * @return {@code true} if the transition happened, {@code false} if the
+     *     state value was not the expected one.
+     * @throws IllegalArgumentException Thrown if the {@link Lifecycle} state
+     *     of the values is not a valid transition.
      */
-    public static void setInternalMessages(boolean internalMessages) {
-        if (isInternalMessages() && !internalMessages) {
-            state &= ~((long)INTERNAL_MESSAGES);
+    public static boolean compareAndSet(long expect, long update) {
+        Lifecycle from = getLifecycle(expect);
+        Lifecycle to = getLifecycle(update);
+        checkArgument(from == to || from.canTransitionTo(to), "Invalid lifecycle transition from %s to %s", from, to);
+
+        if (!STATE.compareAndSet(expect, update)) {
+            return false;
         }
 
-        if (!isInternalMessages() && internalMessages) {
-            state |= ((long)INTERNAL_MESSAGES);
+        if (expect != update) {
+            fireTransition(expect, update);
         }
+
+        return true;
+    }
+
+    /**
+     * Gets the current {@link Lifecycle} state.
+     *
+     * @return The lifecycle state.
+     */
+    public static Lifecycle getLifecycle() {
+        return getLifecycle(getState());
+    }
+
+    /**
+     * Gets the {@link Lifecycle} state of a state value.
+     *
+     * @param state The state value.
+     * @return The lifecycle state.
+     * @throws IllegalArgumentException Thrown if the state value does not
+     *     hold a lifecycle state.
+     */
+    public static Lifecycle getLifecycle(long state) {
+        int ordinal = (int) ((state & LIFECYCLE_MASK) >>> LIFECYCLE_SHIFT);
+        checkArgument(ordinal < LIFECYCLES.length, "Unknown lifecycle state %s", ordinal);
+
+        return LIFECYCLES[ordinal];
+    }
+
+    /**
+     * Transitions from one {@link Lifecycle} state to another, if the
+     *     lifecycle state is still the expected one.
+     *
+     * <p>The subsystem bits are kept, and changes to them while
+     *     transitioning do not fail the transition.
+     *
+     * @param expect The expected lifecycle state.
+     * @param update The new lifecycle state.
+     * @return {@code true} if the transition happened, {@code false} if the
+     *     lifecycle state was not the expected one.
+     * @throws IllegalArgumentException Thrown if the transition is not valid.
+     */
+    public static boolean transition(Lifecycle expect, Lifecycle update) {
+        checkNotNull(expect, "expect");
+        checkNotNull(update, "update");
+        checkArgument(expect.canTransitionTo(update), "Invalid lifecycle transition from %s to %s", expect, update);
+
+        long current;
+        long next;
+
+        do {
+            current = STATE.get();
+
+            if (getLifecycle(current) != expect) {
+                return false;
+            }
+
+            next = (current & ~LIFECYCLE_MASK) | ((long) update.ordinal() << LIFECYCLE_SHIFT);
+        } while (!STATE.compareAndSet(current, next));
+
+        fireTransition(current, next);
+        return true;
+    }
+
+    /**
+     * Registers a listener for state transitions.
+     *
+     * @param listener The listener.
+     */
+    public static void addListener(Listener listener) {
+        LISTENERS.add(checkNotNull(listener, "listener"));
+    }
+
+    /**
+     * Unregisters a listener for state transitions.
+     *
+     * @param listener The listener.
+     */
+    public static void removeListener(Listener listener) {
+        LISTENERS.remove(checkNotNull(listener, "listener"));
+    }
+
+    /**
+     * Sets the internal messages bit.
+     *
+     * @param internalMessages {@code true} for set, {@code false} for unset.
+     */
+    public static void setInternalMessages(boolean internalMessages) {
+        set(INTERNAL_MESSAGES, internalMessages);
     }
 
     /**
@@ -126,22 +258,16 @@ public static boolean isInternalMessages() {
     }
 
     /**
-     * Sets the internal messages bit.
+     * Sets the global config bit.
      *
-     * @param internalMessages {@code true} for set, {@code false} for unset.
+     * @param globalConfig {@code true} for set, {@code false} for unset.
      */
-    public static void setGlobalConfig(boolean internalMessages) {
-        if (isInternalMessages() && !internalMessages) {
-            state &= ~((long)GLOBAL_CONFIG);
-        }
-
-        if (!isInternalMessages() && internalMessages) {
-            state |= ((long)GLOBAL_CONFIG);
-        }
+    public static void setGlobalConfig(boolean globalConfig) {
+        set(GLOBAL_CONFIG, globalConfig);
     }
 
     /**
-     * Gets if the internal messages bit is set or not.
+     * Gets if the global config bit is set or not.
      *
      * @return {@code true} is set, {@code false} otherwise.
      */
@@ -149,13 +275,31 @@ public static boolean isGlobalConfig() {
         return (getState() & ((long)GLOBAL_CONFIG)) != 0;
     }
 
+    /**
+     * Sets the main configs bit.
+     *
+     * @param mainConfigs {@code true} for set, {@code false} for unset.
+     */
+    public static void setMainConfigs(boolean mainConfigs) {
+        set(MAIN_CONFIGS, mainConfigs);
+    }
+
+    /**
+     * Gets if the main configs bit is set or not.
+     *
+     * @return {@code true} is set, {@code false} otherwise.
+     */
+    public static boolean isMainConfigs() {
+        return (getState() & ((long)MAIN_CONFIGS)) != 0;
+    }
+
     /**
      * Gets if the plugin is in an error state.
      *
      * @return {@code true} if plugin is errored, false otherwise.
      */
     public static boolean isErrored() {
-        return errored;
+        return (getState() & ((long)ERRORED)) != 0;
     }
 
     /**
@@ -164,7 +308,7 @@ public static boolean isErrored() {
      * @param errored {@code true} to mark errored, {@code false} to mark not errored.
      */
     public static void setErrored(boolean errored) {
-        PluginStatus.errored = errored;
+        set(ERRORED, errored);
     }
 
     /**
@@ -177,7 +321,7 @@ public static void setErrored(boolean errored) {
     public static void checkForError(FoundationsPlugin plugin, @Nullable Throwable throwable) {
         // TODO cleanup stuff
         // TODO print exception iff there is one.
-        final String status = "%s%s";
+        final String status = "%s%s%s";
         final String errorMes = "A fatal error occurred. %s will now become ineffective. Status: %s";
 
         if (isErrored()) {
@@ -185,16 +329,112 @@ public static void checkForError(FoundationsPlugin plugin, @Nullable Throwable t
             plugin.getLogger().error(String.format(errorMes, PluginInfo.ID,
                     String.format(status,
                             PluginStatus.isInternalMessages() ? PluginStatus.INTERNAL_MESSAGES_CODE : '*',
-                            PluginStatus.isGlobalConfig() ? PluginStatus.GLOBAL_CONFIG_CODE : '*')),
+                            PluginStatus.isGlobalConfig() ? PluginStatus.GLOBAL_CONFIG_CODE : '*',
+                            PluginStatus.isMainConfigs() ? PluginStatus.MAIN_CONFIGS_CODE : '*')),
                     throwable);
 
             clearForError(plugin);
         }
     }
 
+    private static void set(byte bit, boolean set) {
+        long current;
+        long update;
+
+        do {
+            current = STATE.get();
+            update = set ? current | ((long) bit) : current & ~((long) bit);
+        } while (!STATE.compareAndSet(current, update));
+
+        if (current != update) {
+            fireTransition(current, update);
+        }
+    }
+
+    private static void fireTransition(long from, long to) {
+        TRANSITIONS.increment();
+
+        // A failing listener must neither stop the other listeners nor fail the transition, which already happened
+        for (Listener listener : LISTENERS) {
+            try {
+                listener.onTransition(from, to);
+            } catch (RuntimeException e) {
+                LOGGER.error("Plugin status listener {} failed on the transition from {} to {}", listener, Long.toHexString(from),
+                        Long.toHexString(to), e);
+            }
+        }
+    }
+
     private static void clearForError(FoundationsPlugin plugin) {
         // TODO actually do stuff here
         // TODO clear InternalMessages guice provider
     }
 
+    /**
+     * The lifecycle states of the plugin, in order.
+     *
+     * <p>Every state transitions to the next one, and every state before
+     *     {@link #STOPPING} can also transition straight to it, as the server
+     *     may stop before the plugin started.
+     */
+    public enum Lifecycle {
+
+        /**
+         * The plugin was constructed.
+         */
+        CONSTRUCTED,
+
+        /**
+         * The plugin is starting with the game.
+         */
+        STARTING,
+
+        /**
+         * The server started with the plugin.
+         */
+        STARTED,
+
+        /**
+         * The plugin is stopping with the server.
+         */
+        STOPPING,
+
+        /**
+         * The plugin stopped.
+         */
+        STOPPED;
+
+        /**
+         * Gets if this state can transition to another state.
+         *
+         * @param state The other state.
+         * @return {@code true} if the transition is valid, {@code false}
+         *     otherwise.
+         */
+        public boolean canTransitionTo(Lifecycle state) {
+            return state.ordinal() == ordinal() + 1 || (state == STOPPING && ordinal() < STOPPING.ordinal());
+        }
+
+    }
+
+    /**
+     * Listens to transitions of the plugin status.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called after the state value changed.
+         *
+         * <p>Listeners are called on the thread that made the transition, in
+         *     the order of transitions made by that thread. Exceptions thrown
+         *     by a listener are logged and do not affect the other listeners.
+         *
+         * @param from The previous state value.
+         * @param to The new state value.
+         */
+        void onTransition(long from, long to);
+
+    }
+
 }
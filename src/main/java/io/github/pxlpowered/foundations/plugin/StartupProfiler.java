@@ -0,0 +1,209 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.plugin;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.api.GameState;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Times the startup steps of the plugin.
+ *
+ * <p>Every {@link GameState} the plugin does work in gets a root span, and
+ *     each step is a child span of the phase or of another step, tagged with
+ *     the subsystem doing the work. Spans may be started and closed on any
+ *     thread.
+ *
+ * <p>The report lists every span as a tree with its duration, followed by
+ *     the totals of each phase and each subsystem. Time spent in a child span
+ *     of the same subsystem is only counted once.
+ */
+final class StartupProfiler {
+
+    private static final String PLUGIN = "plugin";
+
+    private final Queue<Span> roots = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Starts the root span of a phase.
+     *
+     * @param state The phase.
+     * @return The span.
+     */
+    Span phase(GameState state) {
+        checkNotNull(state, "state");
+
+        Span span = new Span(state, null, PLUGIN, state.name());
+        roots.add(span);
+
+        return span;
+    }
+
+    /**
+     * Builds the report.
+     *
+     * @return The lines of the report.
+     */
+    List<String> report() {
+        List<String> lines = new ArrayList<>();
+        Map<GameState, Long> phases = new EnumMap<>(GameState.class);
+        Map<String, Long> subsystems = new TreeMap<>();
+
+        for (Span root : roots) {
+            report(root, 0, lines, subsystems);
+
+            if (root.getDuration() >= 0) {
+                phases.merge(root.state, root.getDuration(), Long::sum);
+            }
+        }
+
+        lines.add("Phase totals");
+        phases.forEach((state, duration) -> lines.add(line(1, state.name(), duration)));
+        lines.add("Subsystem totals");
+        subsystems.forEach((subsystem, duration) -> lines.add(line(1, subsystem, duration)));
+
+        return lines;
+    }
+
+    /**
+     * Writes the report to a file, replacing it if it exists.
+     *
+     * @param path The file to write to.
+     * @throws IOException Thrown if the file could not be written.
+     */
+    void write(Path path) throws IOException {
+        checkNotNull(path, "path");
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        Files.write(path, report(), StandardCharsets.UTF_8);
+    }
+
+    private static void report(Span span, int depth, List<String> lines, Map<String, Long> subsystems) {
+        String name = span.parent == null ? span.name : span.subsystem + ": " + span.name;
+        lines.add(line(depth, name, span.getDuration()));
+
+        // Phases are totaled separately, and nested spans of the same subsystem are already part of their parent
+        if (span.getDuration() >= 0 && span.parent != null && (span.parent.parent == null || !span.parent.subsystem.equals(span.subsystem))) {
+            subsystems.merge(span.subsystem, span.getDuration(), Long::sum);
+        }
+
+        for (Span child : span.children) {
+            report(child, depth + 1, lines, subsystems);
+        }
+    }
+
+    private static String line(int depth, String name, long duration) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < depth; i++) {
+            builder.append("  ");
+        }
+
+        builder.append(name);
+
+        if (duration < 0) {
+            return builder.append(" (running)").toString();
+        }
+
+        return builder.append(String.format(Locale.ROOT, " %.2f ms", duration / (double) TimeUnit.MILLISECONDS.toNanos(1))).toString();
+    }
+
+    /**
+     * A timed step of the startup.
+     */
+    final class Span implements AutoCloseable {
+
+        private final GameState state;
+        @Nullable private final Span parent;
+        private final String subsystem;
+        private final String name;
+        private final Queue<Span> children = new ConcurrentLinkedQueue<>();
+        private final long start = System.nanoTime();
+        private volatile long duration = -1;
+
+        private Span(GameState state, @Nullable Span parent, String subsystem, String name) {
+            this.state = state;
+            this.parent = parent;
+            this.subsystem = subsystem;
+            this.name = name;
+        }
+
+        /**
+         * Starts a child span.
+         *
+         * @param subsystem The subsystem doing the work.
+         * @param name The name of the step.
+         * @return The child span.
+         */
+        Span child(String subsystem, String name) {
+            checkNotNull(subsystem, "subsystem");
+            checkNotNull(name, "name");
+
+            Span span = new Span(state, this, subsystem, name);
+            children.add(span);
+
+            return span;
+        }
+
+        /**
+         * Gets the duration of this span.
+         *
+         * @return The duration in nanoseconds, or {@code -1} if the span was
+         *     not closed yet.
+         */
+        long getDuration() {
+            return duration;
+        }
+
+        @Override
+        public void close() {
+            if (duration < 0) {
+                duration = System.nanoTime() - start;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+public class BinaryNodeCacheTest {
+
+    private static final int MAGIC = 0x464E4443;
+    private static final int FORMAT = 2;
+    private static final byte[] KEY = {1, 2, 3, 4};
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsValues() throws IOException {
+        CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root();
+        node.getNode("string").setValue("value");
+        node.getNode("boolean").setValue(true);
+        node.getNode("integer").setValue(42);
+        node.getNode("long").setValue(42L);
+        node.getNode("double").setValue(4.2D);
+        node.getNode("float").setValue(4.2F);
+        node.getNode("section", "nested").setValue("deep");
+        node.getNode("list").getAppendedNode().setValue("a");
+        node.getNode("list").getAppendedNode().getNode("key").setValue(1);
+
+        CommentedConfigurationNode read = roundTrip(node).getNode();
+
+        assertEquals(node.getValue(), read.getValue());
+        assertEquals(Integer.class, read.getNode("integer").getValue().getClass());
+        assertEquals(Long.class, read.getNode("long").getValue().getClass());
+        assertEquals(Float.class, read.getNode("float").getValue().getClass());
+    }
+
+    @Test
+    public void roundTripsEmptyMapsAndLists() throws IOException {
+        CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root();
+        node.getNode("map").setValue(ImmutableMap.of());
+        node.getNode("list").setValue(ImmutableList.of());
+
+        CommentedConfigurationNode read = roundTrip(node).getNode();
+
+        assertEquals(ImmutableMap.of(), read.getNode("map").getValue());
+        assertEquals(ImmutableList.of(), read.getNode("list").getValue());
+    }
+
+    @Test
+    public void roundTripsComments() throws IOException {
+        CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root();
+        node.getNode("a").setComment("The a value").setValue(1);
+        node.getNode("b", "c").setComment("Nested\nover lines").setValue(2);
+
+        CommentedConfigurationNode read = roundTrip(node).getNode();
+
+        assertEquals(Optional.of("The a value"), read.getNode("a").getComment());
+        assertEquals(Optional.of("Nested\nover lines"), read.getNode("b", "c").getComment());
+        assertFalse(read.getNode("b").getComment().isPresent());
+    }
+
+    @Test
+    public void roundTripsFingerprints() throws IOException {
+        CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root();
+        node.getNode("a").setValue(1);
+
+        Map<Object, HashCode> fingerprints = ImmutableMap.of(
+                NodeFingerprint.ROOT, HashCode.fromInt(1),
+                "a", HashCode.fromLong(2L));
+
+        assertEquals(fingerprints, roundTrip(node, fingerprints).getFingerprints());
+    }
+
+    @Test
+    public void missingCacheIsEmpty() throws IOException {
+        assertFalse(BinaryNodeCache.read(folder.getRoot().toPath().resolve("missing.bin"), KEY).isPresent());
+    }
+
+    @Test
+    public void otherKeyIsEmpty() throws IOException {
+        Path cache = folder.getRoot().toPath().resolve("cache.bin");
+        BinaryNodeCache.write(cache, KEY, SimpleCommentedConfigurationNode.root().setValue("a"), ImmutableMap.of());
+
+        assertFalse(BinaryNodeCache.read(cache, new byte[] {4, 3, 2, 1}).isPresent());
+        assertTrue(BinaryNodeCache.read(cache, KEY).isPresent());
+    }
+
+    @Test
+    public void otherFormatIsEmpty() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT - 1);
+
+        assertFalse(BinaryNodeCache.read(file(bytes.toByteArray()), KEY).isPresent());
+    }
+
+    @Test
+    public void otherMagicIsEmpty() throws IOException {
+        assertFalse(BinaryNodeCache.read(file("a = 1\n".getBytes(StandardCharsets.UTF_8)), KEY).isPresent());
+    }
+
+    @Test
+    public void negativeLengthIsCorrupted() throws IOException {
+        ByteArrayOutputStream bytes = header();
+        new DataOutputStream(bytes).writeInt(-1);
+
+        assertCorrupted(bytes.toByteArray());
+    }
+
+    @Test
+    public void lengthOverFileSizeIsCorrupted() throws IOException {
+        ByteArrayOutputStream bytes = header();
+        new DataOutputStream(bytes).writeInt(Integer.MAX_VALUE);
+
+        assertCorrupted(bytes.toByteArray());
+    }
+
+    @Test
+    public void unknownValueTypeIsCorrupted() throws IOException {
+        ByteArrayOutputStream bytes = header();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeBoolean(false);
+        out.writeByte(99);
+
+        assertCorrupted(bytes.toByteArray());
+    }
+
+    @Test
+    public void deepNestingIsCorrupted() throws IOException {
+        ByteArrayOutputStream bytes = header();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+
+        for (int i = 0; i < 1000; i++) {
+            out.writeBoolean(false);
+            out.writeByte(1);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeByte('a');
+        }
+
+        out.writeBoolean(false);
+        out.writeByte(0);
+
+        assertCorrupted(bytes.toByteArray());
+    }
+
+    @Test
+    public void truncatedCacheIsCorrupted() throws IOException {
+        CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root();
+        node.getNode("a").setValue("value");
+        node.getNode("b").setValue(ImmutableList.of(1, 2, 3));
+
+        Path cache = folder.getRoot().toPath().resolve("cache.bin");
+        BinaryNodeCache.write(cache, KEY, node, ImmutableMap.of(NodeFingerprint.ROOT, HashCode.fromInt(1)));
+        byte[] written = Files.readAllBytes(cache);
+
+        // Any cut past the header must be detected, as the key and format still match
+        for (int length = 9 + KEY.length; length < written.length; length++) {
+            assertCorrupted(Arrays.copyOf(written, length));
+        }
+    }
+
+    private BinaryNodeCache.Entry roundTrip(CommentedConfigurationNode node) throws IOException {
+        return roundTrip(node, ImmutableMap.of());
+    }
+
+    private BinaryNodeCache.Entry roundTrip(CommentedConfigurationNode node, Map<Object, HashCode> fingerprints) throws IOException {
+        Path cache = folder.getRoot().toPath().resolve("cache.bin");
+        BinaryNodeCache.write(cache, KEY, node, fingerprints);
+
+        Optional<BinaryNodeCache.Entry> entry = BinaryNodeCache.read(cache, KEY);
+        assertTrue(entry.isPresent());
+        return entry.get();
+    }
+
+    private static ByteArrayOutputStream header() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeByte(KEY.length);
+        out.write(KEY);
+        return bytes;
+    }
+
+    private Path file(byte[] content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content);
+        return file;
+    }
+
+    private void assertCorrupted(byte[] content) {
+        try {
+            BinaryNodeCache.read(file(content), KEY);
+            fail("Read a corrupted cache of " + content.length + " bytes");
+        } catch (IOException ignored) {
+            // Expected
+        }
+    }
+
+}
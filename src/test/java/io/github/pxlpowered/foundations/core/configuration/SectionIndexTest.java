@@ -0,0 +1,152 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+public class SectionIndexTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void indexesTopLevelSections() throws IOException {
+        assertKeys("a = 1\nb {\n  c = 2\n}\nd: \"x\"\n", "a", "b", "d");
+    }
+
+    @Test
+    public void indexesSectionsSeparatedByCommas() throws IOException {
+        assertKeys("a = 1, b = 2\n", "a", "b");
+    }
+
+    @Test
+    public void indexesDottedKeysByTheirFirstElement() throws IOException {
+        assertKeys("a.b = 1\nc = 2\na.d = 3\n", "a", "c");
+    }
+
+    @Test
+    public void indexesAppendingKeys() throws IOException {
+        assertKeys("list += 1\nlist += 2\nother = 3\n", "list", "other");
+    }
+
+    @Test
+    public void indexesQuotedKeys() throws IOException {
+        assertKeys("\"a b\" = 1\n\"c.d\" = 2\n", "a b", "c.d");
+    }
+
+    @Test
+    public void skipsComments() throws IOException {
+        assertKeys("# a = 1\n// b = 2\nc = 3 # d = 4\ne = 5 // f = 6\n", "c", "e");
+    }
+
+    @Test
+    public void skipsTripleQuotedValues() throws IOException {
+        assertKeys("a = \"\"\"first\nb = 2\n\"last\"\"\"\"\nc = 3\n", "a", "c");
+    }
+
+    @Test
+    public void skipsValuesSpanningLines() throws IOException {
+        assertKeys("a = [\n  1,\n  2\n]\nb {\n  c {\n    d = \"}\"\n  }\n}\ne = 3\n", "a", "b", "e");
+    }
+
+    @Test
+    public void rejectsRootBraces() throws IOException {
+        assertNotIndexable("{\n  a = 1\n}\n");
+    }
+
+    @Test
+    public void rejectsRootArrays() throws IOException {
+        assertNotIndexable("[1, 2]\n");
+    }
+
+    @Test
+    public void rejectsIncludes() throws IOException {
+        assertNotIndexable("include \"other.conf\"\na = 1\n");
+    }
+
+    @Test
+    public void rejectsSubstitutions() throws IOException {
+        assertNotIndexable("a = 1\nb = ${a}\n");
+    }
+
+    @Test
+    public void rejectsTripleQuotedKeys() throws IOException {
+        assertNotIndexable("\"\"\"a\"\"\" = 1\n");
+    }
+
+    @Test
+    public void rejectsEscapedKeys() throws IOException {
+        assertNotIndexable("\"a\\\"b\" = 1\n");
+    }
+
+    @Test
+    public void rejectsUnclosedSections() throws IOException {
+        assertNotIndexable("a {\n  b = 1\n");
+    }
+
+    @Test
+    public void rejectsUnclosedStrings() throws IOException {
+        assertNotIndexable("a = \"b\nc = 1\n");
+    }
+
+    @Test
+    public void rejectsKeysWithWhitespace() throws IOException {
+        assertNotIndexable("a b = 1\n");
+    }
+
+    private Optional<SectionIndex> index(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        return SectionIndex.map(file);
+    }
+
+    private void assertKeys(String content, String... keys) throws IOException {
+        Optional<SectionIndex> index = index(content);
+        List<String> expected = Arrays.asList(keys);
+
+        assertEquals(expected, index.map(value -> new ArrayList<>(value.keys())).orElse(null));
+    }
+
+    private void assertNotIndexable(String content) throws IOException {
+        assertFalse(index(content).isPresent());
+    }
+
+}
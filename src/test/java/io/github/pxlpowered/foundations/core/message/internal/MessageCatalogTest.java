@@ -0,0 +1,189 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interners;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.SimpleConfigurationNode;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MessageCatalogTest {
+
+    @Test
+    public void missingKeyIsNull() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("a", "b").setValue("value");
+
+        MessageCatalog catalog = catalog(root);
+
+        assertFalse(catalog.contains("a.c"));
+        assertNull(catalog.getNode("a.c"));
+        assertNull(catalog.getString("a.c"));
+        assertNull(catalog.getStringFormat("a.c"));
+        assertNull(catalog.getString("b"));
+    }
+
+    @Test
+    public void parentKeyHasNodeWithoutString() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("a", "b").setValue("first");
+        root.getNode("a", "c", "d").setValue("second");
+        root.getNode("ab").setValue("other");
+
+        MessageCatalog catalog = catalog(root);
+        ConfigurationNode node = catalog.getNode("a");
+
+        assertTrue(catalog.contains("a"));
+        assertTrue(catalog.contains("a.c"));
+        assertNull(catalog.getString("a"));
+        assertNull(catalog.getStringFormat("a"));
+        assertNotNull(node);
+        assertEquals("first", node.getNode("b").getString());
+        assertEquals("second", node.getNode("c", "d").getString());
+        assertEquals(2, node.getChildrenMap().size());
+        assertEquals(3, catalog.size());
+    }
+
+    @Test
+    public void firstLayerKeepsItsValues() {
+        ConfigurationNode specific = SimpleConfigurationNode.root();
+        specific.getNode("a").setValue("specific");
+
+        ConfigurationNode general = SimpleConfigurationNode.root();
+        general.getNode("a").setValue("general");
+        general.getNode("b").setValue("fallback");
+
+        MessageCatalog catalog = MessageCatalog.builder(Interners.newStrongInterner()).add(specific).add(catalog(general)).build(null);
+
+        assertEquals("specific", catalog.getString("a"));
+        assertEquals("fallback", catalog.getString("b"));
+    }
+
+    @Test
+    public void slotKeyIsLookedUpBySlot() {
+        MessageCatalog catalog = slotted();
+
+        assertEquals("first %s", catalog.getString(new MessageKey("a.b", 0)));
+        assertEquals("second", catalog.getString(new MessageKey("c", 1)));
+        assertEquals("first x", catalog.getStringFormat(new MessageKey("a.b", 0)).format("x"));
+        assertSame(catalog.getStringFormat(new MessageKey("a.b", 0)), catalog.getStringFormat(new MessageKey("a.b", 0)));
+    }
+
+    @Test
+    public void keyOfAnotherSlotIsLookedUpByName() {
+        MessageCatalog catalog = slotted();
+
+        assertEquals("second", catalog.getString(new MessageKey("c", 0)));
+        assertEquals("second", catalog.getString(new MessageKey("c", 5)));
+        assertEquals("second", catalog.getStringFormat(new MessageKey("c", 0)).format());
+        assertNull(catalog.getString(new MessageKey("missing", 0)));
+        assertNull(catalog.getStringFormat(new MessageKey("missing", 5)));
+    }
+
+    @Test
+    public void slotOfMissingKeyIsNull() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("a").setValue("value");
+
+        MessageCatalog catalog = MessageCatalog.builder(Interners.newStrongInterner()).add(root).build(new String[] {"a", "removed"});
+
+        assertEquals("value", catalog.getString(new MessageKey("a", 0)));
+        assertNull(catalog.getString(new MessageKey("removed", 1)));
+        assertNull(catalog.getStringFormat(new MessageKey("removed", 1)));
+    }
+
+    @Test
+    public void keyWithoutSlotsIsLookedUpByName() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("a").setValue("value");
+
+        assertEquals("value", catalog(root).getString(new MessageKey("a", 3)));
+    }
+
+    @Test
+    public void keepsListValues() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("text", "text").setValue("Hello ");
+        root.getNode("text", "extra").setValue(Arrays.asList(ImmutableMap.of("text", "world", "color", "red"), "!"));
+
+        MessageCatalog catalog = catalog(root);
+        ConfigurationNode node = catalog.getNode("text");
+
+        assertNotNull(node);
+        assertEquals("Hello ", node.getNode("text").getString());
+        assertEquals(2, node.getNode("extra").getChildrenList().size());
+        assertEquals("world", node.getNode("extra", 0, "text").getString());
+        assertEquals("!", node.getNode("extra", 1).getString());
+        assertNull(catalog.getString("text.extra"));
+    }
+
+    @Test
+    public void keepsScalarTypes() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("count").setValue(3);
+        root.getNode("enabled").setValue(true);
+
+        MessageCatalog catalog = catalog(root);
+
+        assertEquals(3, catalog.getNode("count").getValue());
+        assertEquals(true, catalog.getNode("enabled").getValue());
+        assertEquals("3", catalog.getString("count"));
+        assertEquals(2, catalog.size());
+    }
+
+    @Test
+    public void layeredCatalogsKeepListValues() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("list").setValue(Arrays.asList("a", "b"));
+
+        MessageCatalog catalog = MessageCatalog.builder(Interners.newStrongInterner()).add(catalog(root)).build(null);
+
+        assertEquals(Arrays.asList("a", "b"), catalog.getNode("list").getValue());
+    }
+
+    private static MessageCatalog catalog(ConfigurationNode root) {
+        return MessageCatalog.builder(Interners.newStrongInterner()).add(root).build(null);
+    }
+
+    private static MessageCatalog slotted() {
+        ConfigurationNode root = SimpleConfigurationNode.root();
+        root.getNode("a", "b").setValue("first %s");
+        root.getNode("c").setValue("second");
+
+        return MessageCatalog.builder(Interners.newStrongInterner()).add(root).build(new String[] {"a.b", "c"});
+    }
+
+}
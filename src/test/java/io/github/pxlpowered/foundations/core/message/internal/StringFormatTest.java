@@ -0,0 +1,121 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.core.message.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Formattable;
+import java.util.MissingFormatArgumentException;
+import java.util.UnknownFormatConversionException;
+
+public class StringFormatTest {
+
+    @Test
+    public void formatsLiterals() {
+        assertFormats("plain text");
+        assertFormats("");
+    }
+
+    @Test
+    public void formatsStrings() {
+        assertFormats("%s", "a");
+        assertFormats("a %s b %s c", "x", 1);
+        assertFormats("%s%s", "x", "y");
+        assertFormats("%s is %s", null, 2.5D);
+    }
+
+    @Test
+    public void formatsLineSeparators() {
+        assertFormats("a%nb");
+        assertFormats("%n%s%n", "x");
+    }
+
+    @Test
+    public void formatsPercentSigns() {
+        assertFormats("100%%");
+        assertFormats("%%s %s %%%s", "a", "b");
+    }
+
+    @Test
+    public void ignoresExtraArguments() {
+        assertFormats("%s", "a", "b", "c");
+        assertFormats("none", "a");
+    }
+
+    @Test
+    public void fallsBackForOtherConversions() {
+        assertFormats("%d items", 3);
+        assertFormats("%2$s %1$s", "a", "b");
+        assertFormats("%-5s|", "a");
+        assertFormats("%.2f", 1.2345D);
+    }
+
+    @Test
+    public void fallsBackForFormattableArguments() {
+        Formattable formattable = (formatter, flags, width, precision) -> formatter.format("formatted");
+
+        assertFormats("a %s b", formattable);
+        assertFormats("%s %s", "x", formattable);
+    }
+
+    @Test
+    public void failsWithTooFewArguments() {
+        assertFails("%s %s", MissingFormatArgumentException.class, "a");
+        assertFails("%s", MissingFormatArgumentException.class);
+        assertFails("%d %d", MissingFormatArgumentException.class, 1);
+    }
+
+    @Test
+    public void failsOnTrailingPercentSign() {
+        assertFails("a %", UnknownFormatConversionException.class);
+        assertFails("%s %", UnknownFormatConversionException.class, "a");
+    }
+
+    private static void assertFormats(String pattern, Object... args) {
+        assertEquals(String.format(pattern, args), StringFormat.compile(pattern).format(args));
+    }
+
+    private static void assertFails(String pattern, Class<? extends RuntimeException> type, Object... args) {
+        // The compiled format must fail like String.format does
+        try {
+            String.format(pattern, args);
+            fail("String.format accepted " + pattern);
+        } catch (RuntimeException e) {
+            assertEquals(type, e.getClass());
+        }
+
+        try {
+            StringFormat.compile(pattern).format(args);
+            fail("StringFormat accepted " + pattern);
+        } catch (RuntimeException e) {
+            assertEquals(type, e.getClass());
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of foundations, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2017 - 2017 PxL Powered <https://pxlpowered.github.io/foundations>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package io.github.pxlpowered.foundations.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.spongepowered.api.GameState;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class LifecycleGraphTest {
+
+    private final StartupProfiler profiler = new StartupProfiler();
+    private final List<Character> ran = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void runsDependenciesFirst() throws Exception {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('c', GameState.PRE_INITIALIZATION, "c", record('c'), 'a', 'b');
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'));
+        graph.add('b', GameState.PRE_INITIALIZATION, "b", record('b'), 'a');
+
+        run(graph, GameState.PRE_INITIALIZATION);
+
+        assertEquals(Arrays.asList('a', 'b', 'c'), ran);
+    }
+
+    @Test
+    public void runsOnlyTheTasksOfThePhase() throws Exception {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'));
+        graph.add('b', GameState.INITIALIZATION, "b", record('b'), 'a');
+
+        run(graph, GameState.PRE_INITIALIZATION);
+        assertEquals(Collections.singletonList('a'), ran);
+
+        run(graph, GameState.INITIALIZATION);
+        assertEquals(Arrays.asList('a', 'b'), ran);
+
+        run(graph, GameState.POST_INITIALIZATION);
+        assertEquals(Arrays.asList('a', 'b'), ran);
+    }
+
+    @Test
+    public void runsLoneTaskOnTheCallingThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = new ArrayList<>();
+
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", () -> threads.add(Thread.currentThread()));
+
+        run(graph, GameState.PRE_INITIALIZATION);
+
+        assertEquals(Collections.singletonList(caller), threads);
+    }
+
+    @Test
+    public void rejectsUnknownDependency() {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'), 'x');
+
+        assertInvalid(graph);
+    }
+
+    @Test
+    public void rejectsDependencyOfLaterPhase() {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'), 'b');
+        graph.add('b', GameState.INITIALIZATION, "b", record('b'));
+
+        assertInvalid(graph);
+    }
+
+    @Test
+    public void rejectsCycle() {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'), 'c');
+        graph.add('b', GameState.PRE_INITIALIZATION, "b", record('b'), 'a');
+        graph.add('c', GameState.PRE_INITIALIZATION, "c", record('c'), 'b');
+
+        assertInvalid(graph);
+    }
+
+    @Test
+    public void rejectsSelfDependency() {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'), 'a');
+
+        assertInvalid(graph);
+    }
+
+    @Test
+    public void validatesBeforeRunningAnything() {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'));
+        graph.add('b', GameState.INITIALIZATION, "b", record('b'), 'x');
+
+        try {
+            run(graph, GameState.PRE_INITIALIZATION);
+            fail("Ran an invalid graph");
+        } catch (Exception e) {
+            assertEquals(IllegalStateException.class, e.getClass());
+        }
+
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateId() {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'));
+        graph.add('a', GameState.INITIALIZATION, "a", record('a'));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsTaskAddedAfterValidation() {
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", record('a'));
+        graph.validate();
+
+        graph.add('b', GameState.INITIALIZATION, "b", record('b'));
+    }
+
+    @Test
+    public void failureSkipsDependents() throws Exception {
+        IOException failure = new IOException("a failed");
+
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", failing('a', failure));
+        graph.add('b', GameState.PRE_INITIALIZATION, "b", record('b'), 'a');
+        graph.add('c', GameState.PRE_INITIALIZATION, "c", record('c'), 'b');
+
+        assertSame(failure, runFailing(graph, GameState.PRE_INITIALIZATION));
+        assertEquals(Collections.singletonList('a'), ran);
+    }
+
+    @Test
+    public void failureSkipsDependentsOfLaterPhases() throws Exception {
+        IOException failure = new IOException("a failed");
+
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", failing('a', failure));
+        graph.add('b', GameState.INITIALIZATION, "b", record('b'), 'a');
+        graph.add('c', GameState.INITIALIZATION, "c", record('c'));
+
+        assertSame(failure, runFailing(graph, GameState.PRE_INITIALIZATION));
+        assertSame(failure, runFailing(graph, GameState.INITIALIZATION));
+        assertFalse(ran.contains('b'));
+        assertTrue(ran.contains('c'));
+    }
+
+    @Test
+    public void failureOfLoneTaskSkipsItsDependents() throws Exception {
+        IOException failure = new IOException("a failed");
+
+        LifecycleGraph graph = new LifecycleGraph();
+        graph.add('a', GameState.PRE_INITIALIZATION, "a", failing('a', failure));
+        graph.add('b', GameState.INITIALIZATION, "b", record('b'), 'a');
+
+        assertSame(failure, runFailing(graph, GameState.PRE_INITIALIZATION));
+        assertSame(failure, runFailing(graph, GameState.INITIALIZATION));
+        assertEquals(Collections.singletonList('a'), ran);
+    }
+
+    private LifecycleGraph.Action record(char id) {
+        return () -> ran.add(id);
+    }
+
+    private LifecycleGraph.Action failing(char id, Exception failure) {
+        return () -> {
+            ran.add(id);
+            throw failure;
+        };
+    }
+
+    private void run(LifecycleGraph graph, GameState state) throws Exception {
+        graph.run(state, profiler.phase(state));
+    }
+
+    private Exception runFailing(LifecycleGraph graph, GameState state) {
+        try {
+            run(graph, state);
+        } catch (Exception e) {
+            return e;
+        }
+
+        throw new AssertionError("The " + state + " phase did not fail");
+    }
+
+    private static void assertInvalid(LifecycleGraph graph) {
+        try {
+            graph.validate();
+            fail("Validated an invalid graph");
+        } catch (IllegalStateException ignored) {
+            // Expected
+        }
+    }
+
+}